@@ -23,13 +23,54 @@
  */
 package local.tools.json;
 
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
 public class JSONArray extends JSONElement {
 
     private JSONNode selectNode = null;
     private int selectInt = -1;
 
     public JSONArray(String source) throws JSONException {
-        JSONParser parser = new JSONParser(source);
+        this(new JSONParser(source));
+    }
+
+    public JSONArray(char[] buffer) throws JSONException {
+        this(buffer, 0, buffer.length);
+    }
+
+    public JSONArray(char[] buffer, int offset, int length) throws JSONException {
+        this(new JSONParser(buffer, offset, length));
+    }
+
+    public JSONArray(CharSequence source) throws JSONException {
+        this(new JSONParser(source));
+    }
+
+    public JSONArray(byte[] utf8) throws JSONException {
+        this(utf8, 0, utf8.length);
+    }
+
+    public JSONArray(byte[] utf8, int offset, int length) throws JSONException {
+        this(new JSONParser(utf8, offset, length));
+    }
+
+    public JSONArray(ByteBuffer utf8) throws JSONException {
+        this(new JSONParser(utf8));
+    }
+
+    public JSONArray(Reader reader) throws JSONException {
+        this(new JSONParser(reader));
+    }
+
+    public JSONArray(InputStream utf8) throws JSONException {
+        this(new JSONParser(utf8));
+    }
+
+    JSONArray(JSONParser parser) throws JSONException {
         parser.parse();
         if (parser.getRoot().type != JSONType.JSONArray) {
             throw new JSONException("JSON Array must start with '['", 0);
@@ -37,6 +78,13 @@ public class JSONArray extends JSONElement {
         root = parser.getRoot();
     }
 
+    @Override
+    void reset(JSONNode root) {
+        super.reset(root);
+        selectNode = null;
+        selectInt = -1;
+    }
+
     public JSONArray() {
         this(JSONNode.createArrayNode(0));
     }
@@ -254,9 +302,9 @@ public class JSONArray extends JSONElement {
             case EString:
                 return node.getStringValue();
             case Integer:
-                return (Long) node.getLongValue();
+                return node.getIntegerObject();
             case Float:
-                return (Double) node.getDoubleValue();
+                return node.getDoubleObject();
             default:
                 throw new JSONException("Unsupported object type.");
         }
@@ -298,6 +346,17 @@ public class JSONArray extends JSONElement {
         return node.getStringValue();
     }
 
+    // A view of the value that is only valid as long as the parsed input is
+    public CharSequence getCharSequence(int index) throws JSONException {
+        JSONNode node = getValueNode(index);
+        return node.getCharSequenceValue();
+    }
+
+    public boolean contentEquals(int index, CharSequence value) {
+        JSONNode node = optValueNode(index);
+        return node != null && node.contentEquals(value);
+    }
+
     public int getInt(int index) throws JSONException {
         JSONNode node = getValueNode(index);
         return node.getIntValue();
@@ -312,6 +371,16 @@ public class JSONArray extends JSONElement {
         JSONNode node = getValueNode(index);
         return node.getDoubleValue();
     }
+
+    public BigDecimal getBigDecimal(int index) throws JSONException {
+        JSONNode node = getValueNode(index);
+        return node.getBigDecimalValue();
+    }
+
+    public BigInteger getBigInteger(int index) throws JSONException {
+        JSONNode node = getValueNode(index);
+        return node.getBigIntegerValue();
+    }
     //</editor-fold>
 
     //<editor-fold desc="Opt Methods">
@@ -341,9 +410,9 @@ public class JSONArray extends JSONElement {
                 case EString:
                     return node.getStringValue();
                 case Integer:
-                    return (Long) node.getLongValue();
+                    return node.getIntegerObject();
                 case Float:
-                    return (Double) node.getDoubleValue();
+                    return node.getDoubleObject();
             }
         } catch (Exception ignored) {
         }
@@ -490,13 +559,51 @@ public class JSONArray extends JSONElement {
             return defaultValue;
         }
     }
+
+    public BigDecimal optBigDecimal(int index) {
+        return this.optBigDecimal(index, null);
+    }
+
+    public BigDecimal optBigDecimal(int index, BigDecimal defaultValue) {
+        try {
+            JSONNode node = optValueNode(index);
+            if (node == null) {
+                return defaultValue;
+            }
+            if (node.type == JSONType.Null) {
+                return defaultValue;
+            }
+            return node.getBigDecimalValue();
+        } catch (Exception ignored) {
+            return defaultValue;
+        }
+    }
+
+    public BigInteger optBigInteger(int index) {
+        return this.optBigInteger(index, null);
+    }
+
+    public BigInteger optBigInteger(int index, BigInteger defaultValue) {
+        try {
+            JSONNode node = optValueNode(index);
+            if (node == null) {
+                return defaultValue;
+            }
+            if (node.type == JSONType.Null) {
+                return defaultValue;
+            }
+            return node.getBigIntegerValue();
+        } catch (Exception ignored) {
+            return defaultValue;
+        }
+    }
     //</editor-fold>
 
     public Object remove(int index) throws JSONException {
         Object obj = opt(index);
         JSONNode node = optValueNode(index);
         if (node != null) {
-            JSONNode pointer = this.root.child;
+            JSONNode pointer = this.root.firstChild();
             if (pointer == node) {
                 root.child = node.next;
             } else {
@@ -508,6 +615,7 @@ public class JSONArray extends JSONElement {
                 }
             }
             root.mixed = true;
+            node.forgetValues();
         }
         selectNode = null;
         selectInt = -1;
@@ -524,7 +632,7 @@ public class JSONArray extends JSONElement {
             throw new IllegalArgumentException("Array index can not be negative");
 
         int num = 0;
-        JSONNode child = root.child;
+        JSONNode child = root.firstChild();
         if (selectInt > -1 && index >= selectInt) {
             num = selectInt;
             child = selectNode;
@@ -546,7 +654,7 @@ public class JSONArray extends JSONElement {
             throw new IllegalArgumentException("Array index can not be negative " + index);
         }
         int num = 0;
-        JSONNode child = root.child;
+        JSONNode child = root.firstChild();
         if (selectInt > -1 && index >= selectInt) {
             num = selectInt;
             child = selectNode;
@@ -564,7 +672,7 @@ public class JSONArray extends JSONElement {
     }
     
     private void appendChild(JSONNode node) {
-        if (root.child == null) {
+        if (root.firstChild() == null) {
             root.child = node;
             root.lastChild = node;
         } else {
@@ -579,12 +687,12 @@ public class JSONArray extends JSONElement {
     private void insertChild(int index, JSONNode node) throws JSONException {
         root.mixed = true;
         if (index == 0) {
-            node.next = root.child;
+            node.next = root.firstChild();
             root.child = node;
             return;
         }
         int current = 1;
-        JSONNode pointer = root.child;
+        JSONNode pointer = root.firstChild();
         if (pointer == null) {
             throw new JSONException("Trying to put at index " + index + " on an empty LazyArray");
         }
@@ -625,7 +733,7 @@ public class JSONArray extends JSONElement {
         StringBuilder output = new StringBuilder();
         output.append("[");
         int newIndent = indent + indentFactor;
-        JSONNode pointer = root.child;
+        JSONNode pointer = root.firstChild();
         boolean single = length() == 1;
         boolean commanate = false;
         while (pointer != null) {
@@ -23,8 +23,21 @@
  */
 package local.tools.json;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
 public abstract class JSONElement {
 
+    private static final JSONParseOptions DEFAULT_OPTIONS = new JSONParseOptions();
+
     protected JSONNode root;
     protected JSONElement parent;
 
@@ -37,6 +50,12 @@ public abstract class JSONElement {
         this.root = root;
     }
 
+    void reset(JSONNode root) {
+        this.root = root;
+        this.parent = null;
+        this.length = -1;
+    }
+
     JSONNode appendAndSetMixedString(JSONType type, String value) {
         StringBuilder mixedBuffer = root.getMixedBuffer();
         JSONNode child = new JSONNode(type, mixedBuffer.length());
@@ -64,6 +83,281 @@ public abstract class JSONElement {
         throw new JSONException("The given string is not a JSON object or array");
     }
 
+    public static JSONElement parse(CharSequence source) throws JSONException {
+        int index = 0;
+        while (index < source.length()) {
+            char c = source.charAt(index);
+            if (c == '[') {
+                return new JSONArray(source);
+            }
+            if (c == '{') {
+                return new JSONObject(source);
+            }
+            index++;
+        }
+        throw new JSONException("The given sequence is not a JSON object or array");
+    }
+
+    public static JSONElement parse(char[] buffer, int offset, int length) throws JSONException {
+        JSONSource.checkRange(buffer.length, offset, length);
+        int index = offset;
+        while (index < offset + length) {
+            char c = buffer[index];
+            if (c == '[') {
+                return new JSONArray(buffer, offset, length);
+            }
+            if (c == '{') {
+                return new JSONObject(buffer, offset, length);
+            }
+            index++;
+        }
+        throw new JSONException("The given buffer is not a JSON object or array");
+    }
+
+    public static JSONElement parse(byte[] utf8) throws JSONException {
+        return parse(utf8, 0, utf8.length);
+    }
+
+    public static JSONElement parse(byte[] utf8, int offset, int length) throws JSONException {
+        JSONSource.checkRange(utf8.length, offset, length);
+        int index = offset;
+        while (index < offset + length) {
+            byte b = utf8[index];
+            if (b == '[') {
+                return new JSONArray(utf8, offset, length);
+            }
+            if (b == '{') {
+                return new JSONObject(utf8, offset, length);
+            }
+            index++;
+        }
+        throw new JSONException("The given buffer is not a JSON object or array");
+    }
+
+    public static JSONElement parse(ByteBuffer utf8) throws JSONException {
+        int index = utf8.position();
+        while (index < utf8.limit()) {
+            byte b = utf8.get(index);
+            if (b == '[') {
+                return new JSONArray(utf8);
+            }
+            if (b == '{') {
+                return new JSONObject(utf8);
+            }
+            index++;
+        }
+        throw new JSONException("The given buffer is not a JSON object or array");
+    }
+
+    // The options also pick how the document is built: a full tree, the selected paths
+    // only, deferred or compact, see JSONParseOptions
+    public static JSONElement parse(CharSequence source, JSONParseOptions options) throws JSONException {
+        return parse(new JSONSource.Sequence(source), options);
+    }
+
+    public static JSONElement parse(char[] buffer, int offset, int length, JSONParseOptions options) throws JSONException {
+        return parse(new JSONSource.Chars(buffer, offset, length), options);
+    }
+
+    public static JSONElement parse(byte[] utf8, JSONParseOptions options) throws JSONException {
+        return parse(utf8, 0, utf8.length, options);
+    }
+
+    public static JSONElement parse(byte[] utf8, int offset, int length, JSONParseOptions options) throws JSONException {
+        return parse(new JSONSource.Utf8(utf8, offset, length), options);
+    }
+
+    public static JSONElement parse(ByteBuffer utf8, JSONParseOptions options) throws JSONException {
+        return parse(new JSONSource.Utf8Buffer(utf8), options);
+    }
+
+    private static JSONElement parse(JSONSource source, JSONParseOptions options) throws JSONException {
+        JSONParser parser = new JSONParser(source);
+        parser.setOptions(options);
+        parser.parse();
+        return create(parser.getRoot());
+    }
+
+    // Checks the syntax without building a tree. validate() returns the position of the
+    // first error, or -1 if the input is a valid document.
+    public static boolean isValid(CharSequence source) {
+        return validate(source) < 0;
+    }
+
+    public static boolean isValid(char[] buffer, int offset, int length) {
+        return validate(buffer, offset, length) < 0;
+    }
+
+    public static boolean isValid(byte[] utf8) {
+        return validate(utf8) < 0;
+    }
+
+    public static boolean isValid(byte[] utf8, int offset, int length) {
+        return validate(utf8, offset, length) < 0;
+    }
+
+    public static boolean isValid(ByteBuffer utf8) {
+        return validate(utf8) < 0;
+    }
+
+    public static int validate(CharSequence source) {
+        return validate(source, DEFAULT_OPTIONS);
+    }
+
+    public static int validate(char[] buffer, int offset, int length) {
+        return validate(buffer, offset, length, DEFAULT_OPTIONS);
+    }
+
+    public static int validate(byte[] utf8) {
+        return validate(utf8, DEFAULT_OPTIONS);
+    }
+
+    public static int validate(byte[] utf8, int offset, int length) {
+        return validate(utf8, offset, length, DEFAULT_OPTIONS);
+    }
+
+    public static int validate(ByteBuffer utf8) {
+        return validate(utf8, DEFAULT_OPTIONS);
+    }
+
+    public static int validate(CharSequence source, JSONParseOptions options) {
+        return validate(new JSONSource.Sequence(source), options);
+    }
+
+    public static int validate(char[] buffer, int offset, int length, JSONParseOptions options) {
+        return validate(new JSONSource.Chars(buffer, offset, length), options);
+    }
+
+    public static int validate(byte[] utf8, JSONParseOptions options) {
+        return validate(utf8, 0, utf8.length, options);
+    }
+
+    public static int validate(byte[] utf8, int offset, int length, JSONParseOptions options) {
+        return validate(new JSONSource.Utf8(utf8, offset, length), options);
+    }
+
+    public static int validate(ByteBuffer utf8, JSONParseOptions options) {
+        return validate(new JSONSource.Utf8Buffer(utf8), options);
+    }
+
+    private static int validate(JSONSource source, JSONParseOptions options) {
+        JSONParser parser = new JSONParser(source);
+        parser.setOptions(options);
+        return parser.validate();
+    }
+
+    private static JSONElement create(JSONNode root) {
+        if (root.type == JSONType.JSONObject) {
+            return new JSONObject(root);
+        }
+        return new JSONArray(root);
+    }
+
+    public static JSONElement parse(Reader reader) throws JSONException {
+        return parse(reader, DEFAULT_OPTIONS);
+    }
+
+    public static JSONElement parse(InputStream utf8) throws JSONException {
+        return parse(utf8, DEFAULT_OPTIONS);
+    }
+
+    public static JSONElement parse(Reader reader, JSONParseOptions options) throws JSONException {
+        return parseStream(new JSONSource.ChunkedChars(reader), options);
+    }
+
+    public static JSONElement parse(InputStream utf8, JSONParseOptions options) throws JSONException {
+        return parseStream(new JSONSource.ChunkedUtf8(utf8), options);
+    }
+
+    private static JSONElement parseStream(JSONSource source, JSONParseOptions options) throws JSONException {
+        try {
+            int index = source.offset;
+            while (index < source.limit) {
+                char c = source.charAt(index);
+                if (c == '[' || c == '{') {
+                    JSONParser parser = new JSONParser(source);
+                    parser.setOptions(options);
+                    return c == '[' ? new JSONArray(parser) : new JSONObject(parser);
+                }
+                index++;
+            }
+        } catch (ArrayIndexOutOfBoundsException ignored) {
+        } catch (UncheckedIOException e) {
+            throw new JSONException(e.getCause());
+        }
+        throw new JSONException("The given stream is not a JSON object or array");
+    }
+
+    public static JSONElement parse(Path path) throws IOException, JSONException {
+        return parse(path, DEFAULT_OPTIONS);
+    }
+
+    public static JSONElement parse(Path path, JSONParseOptions options) throws IOException, JSONException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return parse(channel, size, options, JSONLinesReader.WINDOW_SIZE);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return parse(buffer, options);
+        }
+    }
+
+    // Files beyond the int range of node positions are mapped in windows. The parse
+    // resumes on the next window at the start of the token it ran out in, so every node
+    // lies in one window and keeps it as its source. Positions of nodes, and of errors
+    // found after parsing, are relative to that window.
+    static JSONElement parse(FileChannel channel, long size, JSONParseOptions options, int windowSize) throws IOException, JSONException {
+        if (options.isDeferred() || options.isCompact() || options.getPaths() != null) {
+            throw new JSONException("Deferred, compact and projected parsing need the file in one window, it has " + size + " bytes");
+        }
+        JSONValueCache values = options.getValueCacheSize() > 0 ? new JSONValueCache(options.getValueCacheSize()) : null;
+        JSONParser parser = null;
+        long position = 0;
+        boolean complete = false;
+        try {
+            while (true) {
+                JSONSource window = map(channel, position, (int) Math.min(windowSize, size - position), size);
+                window.values = values;
+                window.strings = options.getStrings();
+                if (parser == null) {
+                    parser = new JSONParser(window);
+                    parser.setOptions(options);
+                }
+                parser.rebase(window);
+                if (!complete) {
+                    complete = parser.resume();
+                }
+                if (complete && (!options.isStrict() || parser.resumeEnd())) {
+                    return create(parser.getRoot());
+                }
+                if (parser.getPosition() == window.offset) {
+                    // A single token does not fit the window
+                    if (windowSize == Integer.MAX_VALUE) {
+                        throw new JSONException("Token is too large to be mapped", parser.getPosition());
+                    }
+                    windowSize = (int) Math.min(2L * windowSize, Integer.MAX_VALUE);
+                }
+                position += parser.getPosition();
+            }
+        } catch (JSONException e) {
+            if (e.getPosition() < 0 || position == 0) {
+                throw e;
+            }
+            long offset = position + e.getPosition();
+            if (offset > Integer.MAX_VALUE) {
+                throw new JSONException(e.getMessage() + " at byte " + offset);
+            }
+            throw new JSONException(e.getMessage(), (int) offset);
+        }
+    }
+
+    private static JSONSource map(FileChannel channel, long position, int size, long fileSize) throws IOException {
+        JSONSource window = new JSONSource.Utf8Buffer(channel.map(FileChannel.MapMode.READ_ONLY, position, size));
+        window.partial = position + size < fileSize;
+        return window;
+    }
+
     static boolean shouldQuoteString(String str) {
         if (str == null) {
             return false;
@@ -121,7 +415,7 @@ public abstract class JSONElement {
     }
 
     public int length() {
-        if (root.child == null) {
+        if (root.firstChild() == null) {
             return 0;
         }
         if (length > -1) {
@@ -174,7 +468,7 @@ public abstract class JSONElement {
                     }
                     break;
                 case Integer:
-                    if (o1.optLong(key) != o2.optLong(key)) {
+                    if (!Objects.equals(o1.opt(key), o2.opt(key))) {
                         return false;
                     }
                     break;
@@ -220,7 +514,7 @@ public abstract class JSONElement {
                     }
                     break;
                 case Integer:
-                    if (a1.optLong(i) != a2.optLong(i)) {
+                    if (!Objects.equals(a1.opt(i), a2.opt(i))) {
                         return false;
                     }
                     break;
@@ -51,6 +51,11 @@ public final class JSONException extends RuntimeException {
         this.cause = t;
     }
 
+    // Index of the character the error was found at, -1 if unknown
+    public int getPosition() {
+        return position;
+    }
+
     @Override
     public String toString() {
         if (position > -1) {
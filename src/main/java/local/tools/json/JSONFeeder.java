@@ -0,0 +1,105 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import java.nio.ByteBuffer;
+
+public final class JSONFeeder {
+
+    private final JSONSource.ChunkedUtf8 source = new JSONSource.ChunkedUtf8();
+    private final JSONParser parser = new JSONParser(source);
+    private boolean complete = false;
+    private boolean ended = false;
+    // Strict mode checks that only white space follows the document, which may arrive
+    // after the document is complete
+    private boolean strict = false;
+
+    public JSONFeeder() {
+    }
+
+    // The document is built as it arrives, so only the options that apply per token are
+    // supported: strict, decodeNumbers, symbols, strings and cacheValues.
+    public JSONFeeder(JSONParseOptions options) {
+        if (options.isDeferred() || options.isCompact() || options.getPaths() != null) {
+            throw new IllegalArgumentException("Deferred, compact and projected parsing are not supported when feeding input");
+        }
+        parser.setOptions(options);
+        strict = options.isStrict();
+        source.strings = options.getStrings();
+        if (options.getValueCacheSize() > 0) {
+            source.values = new JSONValueCache(options.getValueCacheSize());
+        }
+    }
+
+    public boolean feed(ByteBuffer utf8) throws JSONException {
+        if (ended) {
+            throw new JSONException("Input has already been ended");
+        }
+        if (complete && !strict) {
+            utf8.position(utf8.limit());
+            return true;
+        }
+        source.append(utf8);
+        if (!complete) {
+            complete = parser.resume();
+        }
+        if (complete && strict) {
+            parser.resumeEnd();
+        }
+        return complete;
+    }
+
+    public boolean feed(byte[] utf8, int offset, int length) throws JSONException {
+        return feed(ByteBuffer.wrap(utf8, offset, length));
+    }
+
+    public JSONElement endOfInput() throws JSONException {
+        if (!ended) {
+            ended = true;
+            source.end();
+            if (!complete) {
+                complete = parser.resume();
+            }
+            if (complete && strict) {
+                parser.resumeEnd();
+            }
+        }
+        return getElement();
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public JSONElement getElement() throws JSONException {
+        if (!complete) {
+            throw new JSONException("Document is not complete yet");
+        }
+        JSONNode root = parser.getRoot();
+        if (root.type == JSONType.JSONObject) {
+            return new JSONObject(root);
+        }
+        return new JSONArray(root);
+    }
+}
@@ -0,0 +1,250 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public final class JSONLinesReader implements Iterator<JSONObject>, Closeable {
+
+    static final int WINDOW_SIZE = 1 << 30;
+
+    // Set when reading a file: it is mapped in windows that always start at a record
+    // boundary, so no record is split and files beyond the 2 GB int offset range work.
+    private final FileChannel channel;
+    private final boolean ownsChannel;
+    private final long end;
+    private long windowPosition;
+    private int windowSize;
+
+    private JSONSource window;
+    private int pos;
+
+    private boolean pending = false;
+    private int recordStart;
+    private int recordEnd;
+
+    private boolean reuseRecords = false;
+    private JSONParser parser;
+    private JSONSource recordSource;
+    private JSONObject record;
+
+    public JSONLinesReader(byte[] utf8) {
+        this(utf8, 0, utf8.length);
+    }
+
+    public JSONLinesReader(byte[] utf8, int offset, int length) {
+        this(new JSONSource.Utf8(utf8, offset, length));
+    }
+
+    public JSONLinesReader(char[] buffer, int offset, int length) {
+        this(new JSONSource.Chars(buffer, offset, length));
+    }
+
+    public JSONLinesReader(CharSequence source) {
+        this(new JSONSource.Sequence(source));
+    }
+
+    public JSONLinesReader(ByteBuffer utf8) {
+        this(new JSONSource.Utf8Buffer(utf8));
+    }
+
+    private JSONLinesReader(JSONSource source) {
+        channel = null;
+        ownsChannel = false;
+        end = 0;
+        window = source;
+        pos = source.offset;
+    }
+
+    JSONLinesReader(FileChannel channel, boolean ownsChannel, long start, long end, int windowSize) {
+        this.channel = channel;
+        this.ownsChannel = ownsChannel;
+        this.end = end;
+        this.windowPosition = start;
+        this.windowSize = windowSize;
+    }
+
+    public static JSONLinesReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new JSONLinesReader(channel, true, 0, channel.size(), WINDOW_SIZE);
+        } catch (IOException | RuntimeException | Error e) {
+            closeAfterFailure(channel, e);
+            throw e;
+        }
+    }
+
+    // Records are parsed by the worker that consumes them. A parallel stream splits the
+    // file into ranges at line boundaries, each range read by a separate parser. Closing
+    // the stream closes the file.
+    public static Stream<JSONObject> stream(Path path, boolean parallel) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            JSONLinesSpliterator spliterator = new JSONLinesSpliterator(channel, 0, channel.size(), WINDOW_SIZE, JSONLinesSpliterator.MIN_SPLIT_SIZE);
+            return StreamSupport.stream(spliterator, parallel).onClose(() -> {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    throw new JSONException(e);
+                }
+            });
+        } catch (IOException | RuntimeException | Error e) {
+            closeAfterFailure(channel, e);
+            throw e;
+        }
+    }
+
+    // Closes the channel of a reader or stream that could not be created
+    private static void closeAfterFailure(FileChannel channel, Throwable failure) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    // Hands out the same JSONObject for every record and parses into recycled nodes, so
+    // the steady state does not allocate. A record is only valid until next() is called.
+    public JSONLinesReader reuseRecords(boolean reuse) {
+        this.reuseRecords = reuse;
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!pending) {
+            pending = findNext();
+        }
+        return pending;
+    }
+
+    @Override
+    public JSONObject next() throws JSONException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        pending = false;
+        JSONParser parser;
+        if (reuseRecords) {
+            if (recordSource == null) {
+                recordSource = window.slice(recordStart, recordEnd);
+            } else {
+                recordSource.reset(recordStart, recordEnd);
+            }
+            if (this.parser == null) {
+                this.parser = new JSONParser(recordSource);
+                this.parser.enableArena();
+            } else {
+                this.parser.reset(recordSource);
+            }
+            parser = this.parser;
+        } else {
+            parser = new JSONParser(window.slice(recordStart, recordEnd));
+        }
+        parser.parse();
+        JSONNode root = parser.getRoot();
+        if (root.type != JSONType.JSONObject) {
+            throw new JSONException("JSON Lines record must be an object", recordStart);
+        }
+        if (!reuseRecords) {
+            return new JSONObject(root);
+        }
+        if (record == null) {
+            record = new JSONObject(root);
+        } else {
+            record.reset(root);
+        }
+        return record;
+    }
+
+    private boolean findNext() {
+        while (true) {
+            if (window == null || pos >= window.limit) {
+                if (channel == null || !map(window == null ? windowPosition : windowPosition + window.limit)) {
+                    return false;
+                }
+            }
+            int lineEnd = window.indexOf('\n', pos);
+            if (lineEnd == window.limit && channel != null && windowPosition + window.limit < end) {
+                if (pos == window.offset) {
+                    if (windowSize == Integer.MAX_VALUE) {
+                        throw new JSONException("JSON Lines record is too large", pos);
+                    }
+                    windowSize = (int) Math.min(2L * windowSize, Integer.MAX_VALUE);
+                }
+                map(windowPosition + pos);
+                continue;
+            }
+            int start = pos;
+            pos = lineEnd + 1;
+            while (start < lineEnd && isWhiteSpace(window.charAt(start))) {
+                start++;
+            }
+            if (start < lineEnd) {
+                recordStart = start;
+                recordEnd = lineEnd;
+                return true;
+            }
+        }
+    }
+
+    private static boolean isWhiteSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+    private boolean map(long position) {
+        long size = Math.min(windowSize, end - position);
+        if (size <= 0) {
+            return false;
+        }
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        window = new JSONSource.Utf8Buffer(buffer);
+        windowPosition = position;
+        pos = 0;
+        recordSource = null;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (ownsChannel) {
+            channel.close();
+        }
+    }
+}
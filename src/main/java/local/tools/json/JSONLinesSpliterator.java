@@ -0,0 +1,120 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+// Splits a file of JSON lines into byte ranges that start on a record boundary. Every
+// range is read by its own JSONLinesReader, and so its own parser, once traversal starts.
+final class JSONLinesSpliterator implements Spliterator<JSONObject> {
+
+    static final int MIN_SPLIT_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final int windowSize;
+    private final int minSplitSize;
+    private long start;
+    private final long end;
+    private JSONLinesReader reader;
+
+    JSONLinesSpliterator(FileChannel channel, long start, long end, int windowSize, int minSplitSize) {
+        this.channel = channel;
+        this.start = start;
+        this.end = end;
+        this.windowSize = windowSize;
+        this.minSplitSize = minSplitSize;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super JSONObject> action) {
+        if (reader == null) {
+            reader = new JSONLinesReader(channel, false, start, end, windowSize);
+        }
+        if (!reader.hasNext()) {
+            return false;
+        }
+        action.accept(reader.next());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super JSONObject> action) {
+        if (reader == null) {
+            reader = new JSONLinesReader(channel, false, start, end, windowSize);
+        }
+        while (reader.hasNext()) {
+            action.accept(reader.next());
+        }
+    }
+
+    @Override
+    public Spliterator<JSONObject> trySplit() {
+        if (reader != null || end - start < 2L * minSplitSize) {
+            return null;
+        }
+        long split = nextLineStart(start + (end - start) / 2);
+        if (split >= end) {
+            return null;
+        }
+        JSONLinesSpliterator prefix = new JSONLinesSpliterator(channel, start, split, windowSize, minSplitSize);
+        start = split;
+        return prefix;
+    }
+
+    private long nextLineStart(long position) {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        try {
+            while (position < end) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    return end;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '\n') {
+                        return position + i + 1;
+                    }
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return end;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - start;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+}
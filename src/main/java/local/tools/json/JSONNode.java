@@ -23,15 +23,18 @@
  */
 package local.tools.json;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
-public final class JSONNode {
+public class JSONNode {
 
     protected JSONType type;
 
     protected boolean mixed = false;
-    protected char[] charBuffer = null;
+    protected JSONSource source = null;
     protected StringBuilder mixedBuffer = null;
 
     protected int startIndex;
@@ -41,11 +44,30 @@ public final class JSONNode {
     protected JSONNode lastChild;
     protected JSONNode next;
 
-    protected JSONNode(JSONType type, int startIndex) {
+    // Only JSONOptionNode extends the node, so the constructors stay in the package
+    JSONNode(JSONType type, int startIndex) {
         this.startIndex = startIndex;
         this.type = type;
     }
 
+    JSONNode(JSONType type, int startIndex, JSONSource source) {
+        this.startIndex = startIndex;
+        this.type = type;
+        this.source = source;
+    }
+
+    void reset(JSONType type, int startIndex, JSONSource source) {
+        this.type = type;
+        this.startIndex = startIndex;
+        this.source = source;
+        endIndex = -1;
+        mixed = false;
+        mixedBuffer = null;
+        child = null;
+        lastChild = null;
+        next = null;
+    }
+
     protected StringBuilder getMixedBuffer() {
         if (mixedBuffer == null) {
             mixedBuffer = new StringBuilder();
@@ -53,6 +75,10 @@ public final class JSONNode {
         return mixedBuffer;
     }
 
+    protected JSONNode firstChild() {
+        return child;
+    }
+
     protected boolean isMixed() {
         if (mixed) {
             return true;
@@ -82,7 +108,7 @@ public final class JSONNode {
 
     protected int countChildren() {
         int count = 0;
-        JSONNode node = child;
+        JSONNode node = firstChild();
         while (node != null) {
             count++;
             node = node.next;
@@ -118,151 +144,79 @@ public final class JSONNode {
         return new JSONNode(JSONType.Null, index);
     }
 
+    boolean cachesValues() {
+        return source != null && source.values != null;
+    }
+
+    // Drops the cached values of this node and its subtree once put/remove detach it
+    void forgetValues() {
+        if (cachesValues()) {
+            source.values.forget(this);
+        }
+    }
+
     protected int getIntValue() throws JSONException {
-        int i = startIndex;
-        boolean sign = false;
-        int value = 0;
         switch (type) {
             case Float:
                 return (int) getDoubleValue();
+            case Integer:
             case String:
             case EString:
-                if (mixed) {
-                    if (mixedBuffer.charAt(i) == '-') {
-                        sign = true;
-                        i++;
-                    }
-                    for (; i < endIndex; i++) {
-                        char c = mixedBuffer.charAt(i);
-                        if (c < '0' || c > '9') {
-                            throw new JSONException("'" + getStringValue() + "' is not a valid integer", startIndex);
-                        }
-                        value += '0' - c;
-                        if (i + 1 < endIndex) {
-                            value *= 10;
-                        }
-                    }
-                } else {
-                    if (charBuffer[i] == '-') {
-                        sign = true;
-                        i++;
-                    }
-                    for (; i < endIndex; i++) {
-                        char c = charBuffer[i];
-                        if (c < '0' || c > '9') {
-                            throw new JSONException("'" + getStringValue() + "' is not a valid integer", startIndex);
-                        }
-                        value += '0' - c;
-                        if (i + 1 < endIndex) {
-                            value *= 10;
-                        }
-                    }
-                }
-                return sign ? value : -value;
-            case Integer:
-                if (mixed) {
-                    if (mixedBuffer.charAt(i) == '-') {
-                        sign = true;
-                        i++;
-                    }
-                    for (; i < endIndex; i++) {
-                        char c = mixedBuffer.charAt(i);
-                        value += '0' - c;
-                        if (i + 1 < endIndex) {
-                            value *= 10;
-                        }
-                    }
-                } else {
-                    if (charBuffer[i] == '-') {
-                        sign = true;
-                        i++;
-                    }
-                    for (; i < endIndex; i++) {
-                        char c = charBuffer[i];
-                        value += '0' - c;
-                        if (i + 1 < endIndex) {
-                            value *= 10;
-                        }
-                    }
-                }
-                return sign ? value : -value;
+                return (int) JSONNumberParser.parseLong(this, Integer.MIN_VALUE, Integer.MAX_VALUE, "integer");
         }
         throw new JSONException("Not an integer", startIndex);
     }
 
     protected long getLongValue() throws JSONException {
-        int i = startIndex;
-        boolean isNegative = false;
-        long value = 0;
         switch (type) {
             case Float:
                 return (long) getDoubleValue();
+            case Integer:
             case String:
             case EString:
-                if (mixed) {
-                    if (mixedBuffer.charAt(i) == '-') {
-                        isNegative = true;
-                        i++;
-                    }
-                    for (; i < endIndex; i++) {
-                        char c = mixedBuffer.charAt(i);
-                        if (c < '0' || c > '9') {
-                            throw new JSONException("'" + getStringValue() + "' is not a valid long", startIndex);
-                        }
-                        value += '0' - c;
-                        if (i + 1 < endIndex) {
-                            value *= 10;
-                        }
-                    }
-                } else {
-                    if (charBuffer[i] == '-') {
-                        isNegative = true;
-                        i++;
-                    }
-                    for (; i < endIndex; i++) {
-                        char c = charBuffer[i];
-                        if (c < '0' || c > '9') {
-                            throw new JSONException("'" + getStringValue() + "' is not a valid long", startIndex);
-                        }
-                        value += '0' - c;
-                        if (i + 1 < endIndex) {
-                            value *= 10;
-                        }
-                    }
-                }
-                return isNegative ? value : -value;
-            case Integer:
-                if (mixed) {
-                    if (mixedBuffer.charAt(i) == '-') {
-                        isNegative = true;
-                        i++;
-                    }
-                    for (; i < endIndex; i++) {
-                        char c = mixedBuffer.charAt(i);
-                        value += '0' - c;
-                        if (i + 1 < endIndex) {
-                            value *= 10;
-                        }
-                    }
-                } else {
-                    if (charBuffer[i] == '-') {
-                        isNegative = true;
-                        i++;
-                    }
-                    for (; i < endIndex; i++) {
-                        char c = charBuffer[i];
-                        value += '0' - c;
-                        if (i + 1 < endIndex) {
-                            value *= 10;
-                        }
-                    }
-                }
-                return isNegative ? value : -value;
+                return JSONNumberParser.parseLong(this, Long.MIN_VALUE, Long.MAX_VALUE, "long");
         }
         throw new JSONException("Not a long", startIndex);
     }
 
+    // Long where the value of an Integer fits, BigInteger otherwise
+    protected Object getIntegerObject() throws JSONException {
+        if (endIndex - startIndex < 19) {
+            return JSONNumberParser.parseLong(this, Long.MIN_VALUE, Long.MAX_VALUE, "long");
+        }
+        BigInteger big = getBigIntegerValue();
+        return big.bitLength() < 64 ? (Object) big.longValue() : big;
+    }
+
+    protected BigDecimal getBigDecimalValue() throws JSONException {
+        switch (type) {
+            case Integer:
+            case Float:
+            case String:
+            case EString:
+                return JSONNumberParser.parseBigDecimal(this);
+        }
+        throw new JSONException("Not a number", startIndex);
+    }
+
+    protected BigInteger getBigIntegerValue() throws JSONException {
+        switch (type) {
+            case Integer:
+            case Float:
+            case String:
+            case EString:
+                return JSONNumberParser.parseBigInteger(this);
+        }
+        throw new JSONException("Not an integer", startIndex);
+    }
+
     protected double getDoubleValue() throws JSONException {
+        if (type == JSONType.Float || type == JSONType.Integer || type == JSONType.String) {
+            double d = JSONNumberParser.parseDouble(this);
+            if (!Double.isNaN(d)) {
+                return d;
+            }
+        }
         String str = getStringValue();
         if (str == null)
             throw new JSONException("'null' is not a valid double",startIndex);
@@ -276,114 +230,155 @@ public final class JSONNode {
         return d;
     }
 
+    protected Double getDoubleObject() throws JSONException {
+        return getDoubleValue();
+    }
+
     protected String getStringValue() {
         switch (type) {
             case Null:
                 return null;
             case String:
-            case EString: {
-                StringBuilder buffer = new StringBuilder(endIndex - startIndex);
-                if (mixed) {
-                    for (int i = startIndex; i < endIndex; i++) {
-                        char c = mixedBuffer.charAt(i);
-                        if (c == '\\') {
-                            i++;
-                            c = mixedBuffer.charAt(i);
-                            switch (c) {
-                                case '"':
-                                case '\\':
-                                case '/':
-                                    buffer.append(c);
-                                    break;
-                                case 'b':
-                                    buffer.append('\b');
-                                    break;
-                                case 'f':
-                                    buffer.append('\f');
-                                    break;
-                                case 'n':
-                                    buffer.append('\n');
-                                    break;
-                                case 'r':
-                                    buffer.append('\r');
-                                    break;
-                                case 't':
-                                    buffer.append('\t');
-                                    break;
-                                case 'u':
-                                    String code = mixedBuffer.substring(i + 1, i + 5);
-                                    buffer.append((char) Integer.parseInt(code, 16));
-                                    i += 4;
-                                    break;
-                            }
-                        } else {
-                            buffer.append(c);
-                        }
-                    }
-                } else {
-                    for (int i = startIndex; i < endIndex; ++i) {
-                        char c = charBuffer[i];
-                        if (c == '\\') {
-                            i++;
-                            c = charBuffer[i];
-                            switch (c) {
-                                case '"':
-                                case '\\':
-                                case '/':
-                                    buffer.append(c);
-                                    break;
-                                case 'b':
-                                    buffer.append('\b');
-                                    break;
-                                case 'f':
-                                    buffer.append('\f');
-                                    break;
-                                case 'n':
-                                    buffer.append('\n');
-                                    break;
-                                case 'r':
-                                    buffer.append('\r');
-                                    break;
-                                case 't':
-                                    buffer.append('\t');
-                                    break;
-                                case 'u':
-                                    if (i + 1 + 4 >= charBuffer.length)
-                                        throw new JSONException("Invalid unicode symbol code");
-
-                                    String code = new String(charBuffer, i + 1, 4);
-                                    try {
-                                        buffer.append((char) Integer.parseInt(code, 16));
-                                    } catch (NumberFormatException e) {
-                                        throw new JSONException(e);
-                                    }
-                                    i += 4;
-                                    break;
-                                default: {
-                                    throw new JSONException("Unknown escape symbol");
-                                }
-                            }
-                        } else {
-                            buffer.append(c);
-                        }
-                    }
-                }
-                return buffer.toString();
-            }
+                return getRawStringValue();
+            case EString:
+                return unescape();
             default: {
                 if (mixed) {
                     return mixedBuffer.substring(startIndex, endIndex);
                 }
-                return new String(charBuffer, startIndex, endIndex - startIndex);
+                return source.substring(startIndex, endIndex);
             }
         }
     }
 
+    // A view of the input for values that need no decoding, the decoded String otherwise
+    protected CharSequence getCharSequenceValue() {
+        switch (type) {
+            case String:
+            case Integer:
+            case Float:
+                if (!mixed && source.hasCharOffsets(startIndex, endIndex)) {
+                    return new JSONCharSequence(source, startIndex, endIndex);
+                }
+                return getRawStringValue();
+        }
+        return getStringValue();
+    }
+
+    protected boolean contentEquals(CharSequence value) {
+        if (value == null) {
+            return type == JSONType.Null;
+        }
+        switch (type) {
+            case String:
+            case Integer:
+            case Float:
+                if (!mixed) {
+                    return source.contentEquals(startIndex, endIndex, value);
+                }
+        }
+        String str = getStringValue();
+        return str != null && str.contentEquals(value);
+    }
+
+    // Hex digit values, -1 for anything else
+    private static final byte[] HEX = new byte[128];
+
+    static {
+        Arrays.fill(HEX, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            HEX['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX['a' + i] = (byte) (10 + i);
+            HEX['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    static int hex(char c) {
+        return c < 128 ? HEX[c] : -1;
+    }
+
+    // Copies the runs between escapes in bulk; the result never needs more chars than
+    // the escaped text. A surrogate pair comes out as its two decoded units in a row.
+    private String unescape() {
+        char[] chars = new char[endIndex - startIndex];
+        int length = 0;
+        int run = startIndex;
+        int i = indexOfBackslash(run);
+        while (i < endIndex) {
+            length = getChars(run, i, chars, length);
+            char c = i + 1 < endIndex ? charAt(i + 1) : 0;
+            run = i + 2;
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    chars[length++] = c;
+                    break;
+                case 'b':
+                    chars[length++] = '\b';
+                    break;
+                case 'f':
+                    chars[length++] = '\f';
+                    break;
+                case 'n':
+                    chars[length++] = '\n';
+                    break;
+                case 'r':
+                    chars[length++] = '\r';
+                    break;
+                case 't':
+                    chars[length++] = '\t';
+                    break;
+                case 'u': {
+                    if (i + 6 > endIndex)
+                        throw new JSONException("Invalid unicode symbol code");
+
+                    int code = hex(charAt(i + 2)) << 12 | hex(charAt(i + 3)) << 8
+                            | hex(charAt(i + 4)) << 4 | hex(charAt(i + 5));
+                    if (code < 0)
+                        throw new JSONException("Invalid unicode symbol code");
+
+                    chars[length++] = (char) code;
+                    run = i + 6;
+                    break;
+                }
+                default: {
+                    throw new JSONException("Unknown escape symbol");
+                }
+            }
+            i = indexOfBackslash(run);
+        }
+        length = getChars(run, endIndex, chars, length);
+        return new String(chars, 0, length);
+    }
+
+    private char charAt(int index) {
+        return mixed ? mixedBuffer.charAt(index) : source.charAt(index);
+    }
+
+    private int indexOfBackslash(int from) {
+        if (!mixed) {
+            return source.indexOf('\\', from, endIndex);
+        }
+        int index = mixedBuffer.indexOf("\\", from);
+        return index < 0 || index > endIndex ? endIndex : index;
+    }
+
+    private int getChars(int start, int end, char[] dest, int position) {
+        if (!mixed) {
+            return source.getChars(start, end, dest, position);
+        }
+        mixedBuffer.getChars(start, end, dest, position);
+        return position + end - start;
+    }
+
     protected String getRawStringValue() {
         if (mixed) {
             return mixedBuffer.substring(startIndex, endIndex);
         } else {
-            return new String(charBuffer, startIndex, endIndex - startIndex);
+            return source.substring(startIndex, endIndex);
         }
     }
 
@@ -396,7 +391,7 @@ public final class JSONNode {
         private JSONNode next;
 
         protected StringIterator(JSONNode node) {
-            next = node.child;
+            next = node.firstChild();
         }
 
         @Override
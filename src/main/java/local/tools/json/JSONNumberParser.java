@@ -0,0 +1,372 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+// Decodes numbers straight from the characters of a node, without building a String.
+//
+// Integers are accumulated with overflow checks, like Long.parseLong does. Big numbers are
+// built from a long and a scale when they have at most 18 digits, and from a copy of the
+// characters otherwise.
+//
+// Doubles use the algorithm of Clinger for small exponents and the one of Eisel and
+// Lemire otherwise (D. Lemire, "Number Parsing at a Gigabyte per Second", 2021): the
+// decimal significand is multiplied by a 128-bit approximation of the power of ten and
+// the result is used when the approximation error cannot change the rounding. The rare
+// cases where it can, and significands of more than 19 digits that the error of both
+// neighbours does not settle, are left to Double.parseDouble. Either way the result is
+// the correctly rounded double.
+final class JSONNumberParser {
+
+    // Returned when a number has to be decoded by Double.parseDouble. Never the result
+    // of decimal digits.
+    static final double FALLBACK = Double.NaN;
+
+    private static final int SMALLEST_POWER = -325;
+    private static final int LARGEST_POWER = 308;
+
+    // 5^q for q in [SMALLEST_POWER, LARGEST_POWER], scaled by a power of two into
+    // [2^127, 2^128) and rounded down: the high and the low 64 bits.
+    private static final long[] POWERS_HIGH = new long[LARGEST_POWER - SMALLEST_POWER + 1];
+    private static final long[] POWERS_LOW = new long[LARGEST_POWER - SMALLEST_POWER + 1];
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    static {
+        BigInteger five = BigInteger.valueOf(5);
+        for (int q = SMALLEST_POWER; q <= LARGEST_POWER; q++) {
+            BigInteger power;
+            if (q >= 0) {
+                power = five.pow(q);
+                int shift = 128 - power.bitLength();
+                power = shift >= 0 ? power.shiftLeft(shift) : power.shiftRight(-shift);
+            } else {
+                BigInteger divisor = five.pow(-q);
+                power = BigInteger.ONE.shiftLeft(127 + divisor.bitLength()).divide(divisor);
+            }
+            POWERS_HIGH[q - SMALLEST_POWER] = power.shiftRight(64).longValue();
+            POWERS_LOW[q - SMALLEST_POWER] = power.longValue();
+        }
+    }
+
+    private JSONNumberParser() {
+    }
+
+    // The double of the text of a node, FALLBACK if it is not a plain decimal number or
+    // is one of the rare hard cases.
+    static double parseDouble(JSONNode node) {
+        int i = node.startIndex;
+        int end = node.endIndex;
+        if (i == end) {
+            return FALLBACK;
+        }
+        boolean negative = charAt(node, i) == '-';
+        if (negative) {
+            i++;
+        }
+        long significand = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean truncated = false;
+        int integerStart = i;
+        char c = 0;
+        for (; i < end; i++) {
+            c = charAt(node, i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            if (digits < 19) {
+                significand = significand * 10 + (c - '0');
+                if (significand != 0) {
+                    digits++;
+                }
+            } else {
+                scale++;
+                truncated |= c != '0';
+            }
+        }
+        boolean hasDigits = i > integerStart;
+        if (i < end && c == '.') {
+            int fractionStart = ++i;
+            for (; i < end; i++) {
+                c = charAt(node, i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                if (digits < 19) {
+                    significand = significand * 10 + (c - '0');
+                    if (significand != 0) {
+                        digits++;
+                    }
+                    scale--;
+                } else {
+                    truncated |= c != '0';
+                }
+            }
+            if (i == fractionStart) {
+                return FALLBACK;
+            }
+            hasDigits = true;
+        }
+        if (!hasDigits) {
+            return FALLBACK;
+        }
+        if (i < end && (c == 'e' || c == 'E')) {
+            if (++i == end) {
+                return FALLBACK;
+            }
+            c = charAt(node, i);
+            boolean negativeExponent = c == '-';
+            if (c == '-' || c == '+') {
+                i++;
+            }
+            int exponentStart = i;
+            int exponent = 0;
+            for (; i < end; i++) {
+                c = charAt(node, i);
+                if (c < '0' || c > '9') {
+                    return FALLBACK;
+                }
+                if (exponent < 100000) {
+                    exponent = exponent * 10 + (c - '0');
+                }
+            }
+            if (i == exponentStart) {
+                return FALLBACK;
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (i != end) {
+            return FALLBACK;
+        }
+        if (!truncated) {
+            return toDouble(negative, significand, scale);
+        }
+        // The digits after the 19th are somewhere between significand and significand + 1
+        double lower = toDouble(negative, significand, scale);
+        double upper = toDouble(negative, significand + 1, scale);
+        return lower == upper ? lower : FALLBACK;
+    }
+
+    private static char charAt(JSONNode node, int index) {
+        return node.mixed ? node.mixedBuffer.charAt(index) : node.source.charAt(index);
+    }
+
+    // The integer text of a node in [min, max]. kind names the type in error messages.
+    static long parseLong(JSONNode node, long min, long max, String kind) throws JSONException {
+        int i = node.startIndex;
+        int end = node.endIndex;
+        boolean negative = false;
+        if (i < end) {
+            char c = charAt(node, i);
+            if (c == '-' || c == '+') {
+                negative = c == '-';
+                i++;
+            }
+        }
+        if (i == end) {
+            throw new JSONException("'" + node.getStringValue() + "' is not a valid " + kind, node.startIndex);
+        }
+        // Accumulated negatively, the range of negative values is the larger one
+        long limit = negative ? min : -max;
+        long limitBeforeDigit = limit / 10;
+        long value = 0;
+        for (; i < end; i++) {
+            char c = charAt(node, i);
+            if (c < '0' || c > '9') {
+                throw new JSONException("'" + node.getStringValue() + "' is not a valid " + kind, node.startIndex);
+            }
+            int digit = c - '0';
+            if (value < limitBeforeDigit || value * 10 < limit + digit) {
+                throw new JSONException("'" + node.getStringValue() + "' is out of the range of " + kind, node.startIndex);
+            }
+            value = value * 10 - digit;
+        }
+        return negative ? value : -value;
+    }
+
+    static BigDecimal parseBigDecimal(JSONNode node) throws JSONException {
+        int i = node.startIndex;
+        int end = node.endIndex;
+        boolean negative = false;
+        if (i < end) {
+            char c = charAt(node, i);
+            if (c == '-' || c == '+') {
+                negative = c == '-';
+                i++;
+            }
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean hasDigits = false;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            char c = charAt(node, i);
+            if (c >= '0' && c <= '9') {
+                unscaled = unscaled * 10 + (c - '0');
+                hasDigits = true;
+                if (unscaled != 0 && ++digits > 18) {
+                    return parseBigDecimalText(node);
+                }
+                if (fraction) {
+                    scale++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (!hasDigits) {
+            return parseBigDecimalText(node);
+        }
+        if (i < end) {
+            char c = charAt(node, i);
+            if ((c != 'e' && c != 'E') || end - i > 10) {
+                return parseBigDecimalText(node);
+            }
+            boolean negativeExponent = false;
+            if (++i < end && (charAt(node, i) == '-' || charAt(node, i) == '+')) {
+                negativeExponent = charAt(node, i) == '-';
+                i++;
+            }
+            if (i == end) {
+                return parseBigDecimalText(node);
+            }
+            long exponent = 0;
+            for (; i < end; i++) {
+                c = charAt(node, i);
+                if (c < '0' || c > '9') {
+                    return parseBigDecimalText(node);
+                }
+                exponent = exponent * 10 + (c - '0');
+            }
+            long total = scale + (negativeExponent ? exponent : -exponent);
+            if (total < Integer.MIN_VALUE || total > Integer.MAX_VALUE) {
+                return parseBigDecimalText(node);
+            }
+            scale = (int) total;
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    // The general case: BigDecimal parses a copy of the characters, still without a String
+    private static BigDecimal parseBigDecimalText(JSONNode node) throws JSONException {
+        int length = node.endIndex - node.startIndex;
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = charAt(node, node.startIndex + i);
+        }
+        try {
+            return new BigDecimal(chars, 0, length);
+        } catch (NumberFormatException e) {
+            throw new JSONException("'" + node.getStringValue() + "' is not a valid number", node.startIndex);
+        }
+    }
+
+    static BigInteger parseBigInteger(JSONNode node) throws JSONException {
+        try {
+            return parseBigDecimal(node).toBigIntegerExact();
+        } catch (ArithmeticException e) {
+            throw new JSONException("'" + node.getStringValue() + "' is not a valid integer", node.startIndex);
+        }
+    }
+
+    // significand * 10^scale, FALLBACK where the approximation does not decide the rounding
+    static double toDouble(boolean negative, long significand, int scale) {
+        if (scale >= -22 && scale <= 22 && significand >= 0 && significand <= 1L << 53) {
+            // Both operands are exact, so is the rounding of one operation
+            double value = scale < 0 ? significand / POWERS_OF_TEN[-scale] : significand * POWERS_OF_TEN[scale];
+            return negative ? -value : value;
+        }
+        if (significand == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (scale < SMALLEST_POWER || scale > LARGEST_POWER) {
+            return FALLBACK;
+        }
+        long bits = eiselLemire(significand, scale);
+        if (bits < 0) {
+            return FALLBACK;
+        }
+        return Double.longBitsToDouble(negative ? bits | Long.MIN_VALUE : bits);
+    }
+
+    // Bits of the positive double nearest to significand * 10^power, -1 if undecided
+    private static long eiselLemire(long significand, int power) {
+        long factorHigh = POWERS_HIGH[power - SMALLEST_POWER];
+        long exponent = (((152170L + 65536L) * power) >> 16) + 1024 + 63;
+        int leadingZeros = Long.numberOfLeadingZeros(significand);
+        long w = significand << leadingZeros;
+
+        long lower = w * factorHigh;
+        long upper = unsignedMultiplyHigh(w, factorHigh);
+        // The leading 55 bits are exact unless the truncated part of the power can carry into them
+        if ((upper & 0x1FF) == 0x1FF && Long.compareUnsigned(lower + w, lower) < 0) {
+            long factorLow = POWERS_LOW[power - SMALLEST_POWER];
+            long productLow = w * factorLow;
+            long productMiddle2 = unsignedMultiplyHigh(w, factorLow);
+            long productMiddle = lower + productMiddle2;
+            long productHigh = upper;
+            if (Long.compareUnsigned(productMiddle, lower) < 0) {
+                productHigh++;
+            }
+            if (productMiddle + 1 == 0 && (productHigh & 0x1FF) == 0x1FF && Long.compareUnsigned(productLow + w, productLow) < 0) {
+                return -1;
+            }
+            upper = productHigh;
+            lower = productMiddle;
+        }
+        long upperBit = upper >>> 63;
+        long mantissa = upper >>> (upperBit + 9);
+        leadingZeros += (int) (1 ^ upperBit);
+        // Exactly between two doubles, round to even needs the digits that were cut off
+        if (lower == 0 && (upper & 0x1FF) == 0 && (mantissa & 3) == 1) {
+            return -1;
+        }
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= 1L << 53) {
+            mantissa = 1L << 52;
+            leadingZeros--;
+        }
+        mantissa &= ~(1L << 52);
+        long realExponent = exponent - leadingZeros;
+        // Subnormals and overflow are left to the fallback
+        if (realExponent < 1 || realExponent > 2046) {
+            return -1;
+        }
+        return mantissa | realExponent << 52;
+    }
+
+    private static long unsignedMultiplyHigh(long x, long y) {
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+}
@@ -23,6 +23,11 @@
  */
 package local.tools.json;
 
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Objects;
@@ -35,7 +40,42 @@ public class JSONObject extends JSONElement {
     }
     
     public JSONObject(String source) throws JSONException {
-        JSONParser parser = new JSONParser(source);
+        this(new JSONParser(source));
+    }
+
+    public JSONObject(char[] buffer) throws JSONException {
+        this(buffer, 0, buffer.length);
+    }
+
+    public JSONObject(char[] buffer, int offset, int length) throws JSONException {
+        this(new JSONParser(buffer, offset, length));
+    }
+
+    public JSONObject(CharSequence source) throws JSONException {
+        this(new JSONParser(source));
+    }
+
+    public JSONObject(byte[] utf8) throws JSONException {
+        this(utf8, 0, utf8.length);
+    }
+
+    public JSONObject(byte[] utf8, int offset, int length) throws JSONException {
+        this(new JSONParser(utf8, offset, length));
+    }
+
+    public JSONObject(ByteBuffer utf8) throws JSONException {
+        this(new JSONParser(utf8));
+    }
+
+    public JSONObject(Reader reader) throws JSONException {
+        this(new JSONParser(reader));
+    }
+
+    public JSONObject(InputStream utf8) throws JSONException {
+        this(new JSONParser(utf8));
+    }
+
+    JSONObject(JSONParser parser) throws JSONException {
         parser.parse();
         if (parser.getRoot().type != JSONType.JSONObject) {
             throw new JSONException("JSON Object must start with {", 0);
@@ -172,9 +212,9 @@ public class JSONObject extends JSONElement {
                 case EString:
                     return node.getStringValue();
                 case Integer:
-                    return (Long) node.getLongValue();
+                    return node.getIntegerObject();
                 case Float:
-                    return (Double) node.getDoubleValue();
+                    return node.getDoubleObject();
             }
         }
         return null;
@@ -214,6 +254,19 @@ public class JSONObject extends JSONElement {
         return node.getStringValue();
     }
 
+    // A view of the value that is only valid as long as the parsed input is
+    public CharSequence getCharSequence(String key) throws JSONException {
+        JSONNode node = getFieldNode(key);
+        if (node == null)
+            return null;
+        return node.getCharSequenceValue();
+    }
+
+    public boolean contentEquals(String key, CharSequence value) {
+        JSONNode node = optFieldNode(key);
+        return node != null && node.contentEquals(value);
+    }
+
     public boolean getBoolean(String key) throws JSONException {
         JSONNode node = getFieldNode(key);
         if (node.type == JSONType.String || node.type == JSONType.EString) {
@@ -253,6 +306,16 @@ public class JSONObject extends JSONElement {
         JSONNode node = getFieldNode(key);
         return node.getDoubleValue();
     }
+
+    public BigDecimal getBigDecimal(String key) throws JSONException {
+        JSONNode node = getFieldNode(key);
+        return node.getBigDecimalValue();
+    }
+
+    public BigInteger getBigInteger(String key) throws JSONException {
+        JSONNode node = getFieldNode(key);
+        return node.getBigIntegerValue();
+    }
     //</editor-fold>
 
     //<editor-fold desc="Opt Methods">
@@ -279,9 +342,9 @@ public class JSONObject extends JSONElement {
                     case EString:
                         return node.getStringValue();
                     case Integer:
-                        return (Long) node.getLongValue();
+                        return node.getIntegerObject();
                     case Float:
-                        return (Double) node.getDoubleValue();
+                        return node.getDoubleObject();
                 }
             }
         } catch (Exception ignored) {
@@ -425,13 +488,51 @@ public class JSONObject extends JSONElement {
             return defaultValue;
         }
     }
+
+    public BigDecimal optBigDecimal(String key) {
+        return this.optBigDecimal(key, null);
+    }
+
+    public BigDecimal optBigDecimal(String key, BigDecimal defaultValue) {
+        try {
+            JSONNode node = optFieldNode(key);
+            if (node == null) {
+                return defaultValue;
+            }
+            if (node.type == JSONType.Null) {
+                return defaultValue;
+            }
+            return node.getBigDecimalValue();
+        } catch (Exception ignored) {
+            return defaultValue;
+        }
+    }
+
+    public BigInteger optBigInteger(String key) {
+        return this.optBigInteger(key, null);
+    }
+
+    public BigInteger optBigInteger(String key, BigInteger defaultValue) {
+        try {
+            JSONNode node = optFieldNode(key);
+            if (node == null) {
+                return defaultValue;
+            }
+            if (node.type == JSONType.Null) {
+                return defaultValue;
+            }
+            return node.getBigIntegerValue();
+        } catch (Exception ignored) {
+            return defaultValue;
+        }
+    }
     //</editor-fold>
 
     public Object remove(String key) {
         Object obj = opt(key);
         JSONNode node = optField(key);
         if (node != null) {
-            JSONNode pointer = this.root.child;
+            JSONNode pointer = this.root.firstChild();
             if (pointer == node) {
                 root.child = node.next;
                 if (root.lastChild == pointer) {
@@ -446,6 +547,7 @@ public class JSONObject extends JSONElement {
                 }
             }
             root.mixed = true;
+            node.forgetValues();
         }
         return obj;
     }
@@ -459,14 +561,7 @@ public class JSONObject extends JSONElement {
     }
 
     public boolean has(String key) {
-        JSONNode child = root.child;
-        while (child != null) {
-            if (isKeyFieldMatch(key, child)) {
-                return true;
-            }
-            child = child.next;
-        }
-        return false;
+        return optField(key) != null;
     }
     
     public Iterator<String> keys() {
@@ -487,23 +582,17 @@ public class JSONObject extends JSONElement {
             String field = node.getStringValue();
             return Objects.equals(field, key);
         } else {
+            if (!node.mixed) {
+                return node.source.contentEquals(node.startIndex, node.endIndex, key);
+            }
             int length = key.length();
             if (node.endIndex - node.startIndex != length) {
                 return false;
             }
-            if (node.mixed) {
-                for (int i = 0; i < length; i++) {
-                    char c = key.charAt(i);
-                    if (c != node.mixedBuffer.charAt(node.startIndex + i)) {
-                        return false;
-                    }
-                }
-            } else {
-                for (int i = 0; i < length; i++) {
-                    char c = key.charAt(i);
-                    if (c != node.charBuffer[node.startIndex + i]) {
-                        return false;
-                    }
+            for (int i = 0; i < length; i++) {
+                char c = key.charAt(i);
+                if (c != node.mixedBuffer.charAt(node.startIndex + i)) {
+                    return false;
                 }
             }
             return true;
@@ -511,38 +600,42 @@ public class JSONObject extends JSONElement {
     }
 
     private JSONNode getFieldNode(String key) throws JSONException {
-        JSONNode child = root.child;
-        while (child != null) {
-            if (isKeyFieldMatch(key, child)) {
-                return child.child;
-            }
-            child = child.next;
+        JSONNode field = optField(key);
+        if (field == null) {
+            throw new JSONException("Unknown field '" + key + "'");
         }
-        throw new JSONException("Unknown field '" + key + "'");
+        return field.child;
     }
 
     private JSONNode optFieldNode(String key) {
-        JSONNode child = root.child;
-        while (child != null) {
-            if (isKeyFieldMatch(key, child)) {
-                return child.child;
-            }
-            child = child.next;
-        }
-        return null;
+        JSONNode field = optField(key);
+        return field == null ? null : field.child;
     }
 
+    // Fields named from a JSONSymbolTable are matched by id: the key is looked up in the
+    // table once, after that each of them costs an int compare
     private JSONNode optField(String key) {
-        JSONNode child = root.child;
+        JSONSymbolTable symbols = null;
+        int id = -1;
+        JSONNode child = root.firstChild();
         while (child != null) {
-            if (isKeyFieldMatch(key, child)) {
+            int symbolId = child instanceof JSONOptionNode ? ((JSONOptionNode) child).symbolId : -1;
+            if (symbolId >= 0) {
+                if (child.source.symbols != symbols) {
+                    symbols = child.source.symbols;
+                    id = symbols.id(key);
+                }
+                if (symbolId == id) {
+                    return child;
+                }
+            } else if (isKeyFieldMatch(key, child)) {
                 return child;
             }
             child = child.next;
         }
         return null;
     }
-    
+
     private void attachField(String key, JSONNode child) {
         StringBuilder mixedBuffer = root.getMixedBuffer();
         JSONNode node = optField(key);
@@ -561,6 +654,8 @@ public class JSONObject extends JSONElement {
                 root.lastChild.next = node;
                 root.lastChild = node;
             }
+        } else if (node.child != null) {
+            node.child.forgetValues();
         }
         node.child = child;
         node.lastChild = child;
@@ -593,7 +688,7 @@ public class JSONObject extends JSONElement {
         output.append("{");
         
         int newIndent = indent + indentFactor;
-        JSONNode pointer = root.child;
+        JSONNode pointer = root.firstChild();
         boolean commanate = false;
         while (pointer != null) {
             if (commanate)
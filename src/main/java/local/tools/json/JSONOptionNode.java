@@ -0,0 +1,205 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+// Node of a document parsed with an option that keeps state per node or looks values
+// up when they are read: compact, deferred, decodeNumbers, symbols, strings or
+// cacheValues. Plain parses build
+// JSONNodes, which carry none of these fields.
+final class JSONOptionNode extends JSONNode {
+
+    // Set while the children of a container are still on the tape
+    JSONTape tape;
+    // Set while a container skipped by a deferred parse has not been read
+    boolean deferred;
+
+    // Value of a number decoded by the parser: the long of an Integer, the raw bits of
+    // the double of a Float
+    long numberBits;
+    boolean numberDecoded;
+
+    // Id of the name of a field in the JSONSymbolTable of the source, -1 if it has none
+    int symbolId = -1;
+
+    // Value cached by the JSONValueCache of the source: the String of a string, the
+    // Double of a Float, the Long or BigInteger of an Integer, or the text of a number.
+    // A number read both ways holds a JSONValueCache.NumberText.
+    Object memo;
+
+    JSONOptionNode(JSONType type, int startIndex, JSONSource source) {
+        super(type, startIndex, source);
+    }
+
+    @Override
+    void reset(JSONType type, int startIndex, JSONSource source) {
+        super.reset(type, startIndex, source);
+        tape = null;
+        deferred = false;
+        numberDecoded = false;
+        symbolId = -1;
+        memo = null;
+    }
+
+    @Override
+    protected JSONNode firstChild() {
+        if (tape != null) {
+            JSONTape pending = tape;
+            tape = null;
+            pending.expand(this);
+        } else if (deferred) {
+            JSONParser.expand(this);
+            deferred = false;
+        }
+        return child;
+    }
+
+    void setNumberBits(long bits) {
+        numberBits = bits;
+        numberDecoded = true;
+    }
+
+    // The cached Long, BigInteger or Double of a number, null if there is none
+    private Object memoNumber() {
+        Object value = memo instanceof JSONValueCache.NumberText ? ((JSONValueCache.NumberText) memo).number : memo;
+        return value instanceof String ? null : value;
+    }
+
+    // The cached String of a string or of the text of a number, null if there is none
+    private String memoText() {
+        if (memo instanceof JSONValueCache.NumberText) {
+            return ((JSONValueCache.NumberText) memo).text;
+        }
+        return memo instanceof String ? (String) memo : null;
+    }
+
+    @Override
+    protected int getIntValue() throws JSONException {
+        if (type == JSONType.Integer && cachesValues()) {
+            Object value = getIntegerObject();
+            if (value instanceof Long && (Long) value >= Integer.MIN_VALUE && (Long) value <= Integer.MAX_VALUE) {
+                return (int) (long) (Long) value;
+            }
+            throw new JSONException("'" + getStringValue() + "' is out of the range of integer", startIndex);
+        }
+        if (numberDecoded && type == JSONType.Integer) {
+            if (numberBits < Integer.MIN_VALUE || numberBits > Integer.MAX_VALUE) {
+                throw new JSONException("'" + getStringValue() + "' is out of the range of integer", startIndex);
+            }
+            return (int) numberBits;
+        }
+        return super.getIntValue();
+    }
+
+    @Override
+    protected long getLongValue() throws JSONException {
+        if (type == JSONType.Integer && cachesValues()) {
+            Object value = getIntegerObject();
+            if (value instanceof Long) {
+                return (Long) value;
+            }
+            throw new JSONException("'" + getStringValue() + "' is out of the range of long", startIndex);
+        }
+        if (numberDecoded && type == JSONType.Integer) {
+            return numberBits;
+        }
+        return super.getLongValue();
+    }
+
+    @Override
+    protected Object getIntegerObject() throws JSONException {
+        Object cached = memoNumber();
+        if (cached != null && type == JSONType.Integer) {
+            return cached;
+        }
+        Object value = numberDecoded ? (Object) numberBits : super.getIntegerObject();
+        if (type == JSONType.Integer && cachesValues()) {
+            source.values.remember(this, value);
+        }
+        return value;
+    }
+
+    @Override
+    protected double getDoubleValue() throws JSONException {
+        Object cached = memoNumber();
+        if (cached instanceof Number) {
+            return ((Number) cached).doubleValue();
+        }
+        if (type == JSONType.Float && cachesValues()) {
+            return getDoubleObject();
+        }
+        return decodeDouble();
+    }
+
+    // The same Double for every call while the value is cached
+    @Override
+    protected Double getDoubleObject() throws JSONException {
+        Object cached = memoNumber();
+        if (cached instanceof Double) {
+            return (Double) cached;
+        }
+        Double value = decodeDouble();
+        if (type == JSONType.Float && cachesValues()) {
+            source.values.remember(this, value);
+        }
+        return value;
+    }
+
+    private double decodeDouble() throws JSONException {
+        if (numberDecoded) {
+            return type == JSONType.Float ? Double.longBitsToDouble(numberBits) : (double) numberBits;
+        }
+        return super.getDoubleValue();
+    }
+
+    @Override
+    protected String getStringValue() {
+        if (symbolId >= 0) {
+            return source.symbols.name(symbolId);
+        }
+        switch (type) {
+            case String:
+            case EString:
+            case Integer:
+            case Float:
+                break;
+            default:
+                return super.getStringValue();
+        }
+        String cached = memoText();
+        if (cached != null) {
+            return cached;
+        }
+        if (type == JSONType.String && !mixed && source.strings != null) {
+            String shared = source.strings.get(source, startIndex, endIndex);
+            if (shared != null) {
+                return shared;
+            }
+        }
+        String value = super.getStringValue();
+        if (cachesValues()) {
+            source.values.remember(this, value);
+        }
+        return value;
+    }
+}
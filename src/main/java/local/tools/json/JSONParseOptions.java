@@ -0,0 +1,169 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+// Settings of a parse. The default is the lenient syntax the parser has always accepted:
+// single quoted and unquoted strings, numbers with a leading plus and null, true and false
+// starting with a capital letter. Strict mode accepts RFC 8259 JSON only and skips the
+// checks for all of these. It also rejects unescaped control characters and malformed
+// unicode escapes in strings, which the lenient parser lets through.
+//
+// With decodeNumbers the parser computes the value of each number while scanning it, so
+// reading it later is a field load. It costs some parse time and a few bytes per node
+// and pays off for documents whose numbers are read, often more than once.
+//
+// A JSONSymbolTable set with symbols() gives field names a canonical String and a
+// JSONStringCache set with strings() shares short string values, see there.
+//
+// cacheValues keeps the Strings and numbers read from a document on its nodes, up to
+// about the given number of bytes per document, for code that reads the same values
+// many times. 0, the default, turns it off.
+//
+// The remaining settings pick how the document is built:
+// - paths() builds nodes for the selected fields and their ancestors only, everything
+//   else is skipped without creating nodes. With strict() the skipped values are still
+//   checked.
+// - deferred() builds the top level only. Nested objects and arrays are bracket matched
+//   and parsed with the same options when they are first read, so syntax errors inside
+//   them are reported then.
+// - compact() keeps the document as a tape of four ints per token that is written while
+//   parsing, nodes are only created when a container is read. Numbers are not decoded
+//   in this mode.
+// - indexed() parses UTF-8 input through a structural index built a block of bytes at a
+//   time on one thread. Building the tree from the index is not faster than the normal
+//   parse yet, which is why it is off by default. Input it can not handle the same way,
+//   and any option other than cacheValues, take the normal path.
+// Deferred parsing can not be combined with paths() or compact().
+public final class JSONParseOptions {
+
+    private boolean strict = false;
+    private boolean decodeNumbers = false;
+    private JSONSymbolTable symbols = null;
+    private JSONStringCache strings = null;
+    private long valueCacheSize = 0;
+    private JSONPaths paths = null;
+    private boolean deferred = false;
+    private boolean compact = false;
+    private boolean indexed = false;
+
+    public JSONParseOptions strict(boolean strict) {
+        this.strict = strict;
+        return this;
+    }
+
+    public boolean isStrict() {
+        return strict;
+    }
+
+    public JSONParseOptions decodeNumbers(boolean decodeNumbers) {
+        this.decodeNumbers = decodeNumbers;
+        return this;
+    }
+
+    public boolean isDecodeNumbers() {
+        return decodeNumbers;
+    }
+
+    public JSONParseOptions symbols(JSONSymbolTable symbols) {
+        this.symbols = symbols;
+        return this;
+    }
+
+    public JSONSymbolTable getSymbols() {
+        return symbols;
+    }
+
+    public JSONParseOptions strings(JSONStringCache strings) {
+        this.strings = strings;
+        return this;
+    }
+
+    public JSONStringCache getStrings() {
+        return strings;
+    }
+
+    public JSONParseOptions cacheValues(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Cache size can not be negative " + maxBytes);
+        }
+        this.valueCacheSize = maxBytes;
+        return this;
+    }
+
+    public long getValueCacheSize() {
+        return valueCacheSize;
+    }
+
+    public JSONParseOptions paths(JSONPaths paths) {
+        this.paths = paths;
+        return this;
+    }
+
+    public JSONPaths getPaths() {
+        return paths;
+    }
+
+    public JSONParseOptions deferred(boolean deferred) {
+        this.deferred = deferred;
+        return this;
+    }
+
+    public boolean isDeferred() {
+        return deferred;
+    }
+
+    public JSONParseOptions compact(boolean compact) {
+        this.compact = compact;
+        return this;
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    public JSONParseOptions indexed(boolean indexed) {
+        this.indexed = indexed;
+        return this;
+    }
+
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    // A deferred document keeps its options to parse the containers it skipped, so later
+    // changes to the caller's instance must not reach it
+    JSONParseOptions copy() {
+        JSONParseOptions copy = new JSONParseOptions();
+        copy.strict = strict;
+        copy.decodeNumbers = decodeNumbers;
+        copy.symbols = symbols;
+        copy.strings = strings;
+        copy.valueCacheSize = valueCacheSize;
+        copy.paths = paths;
+        copy.deferred = deferred;
+        copy.compact = compact;
+        copy.indexed = indexed;
+        return copy;
+    }
+}
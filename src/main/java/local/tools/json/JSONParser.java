@@ -23,6 +23,12 @@
  */
 package local.tools.json;
 
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 final class JSONParser {
 
     private final char Char_SPACE = ' ';
@@ -60,10 +66,13 @@ final class JSONParser {
     private final char Char_SQUARE_CLOSE = ']';
 
     private JSONNode root;
-    private final char[] charBuffer;
-    private final int length;
+    private JSONSource source;
+    private int length;
     private int pos = 0;
 
+    private JSONNode[] arena = null;
+    private int arenaSize = 0;
+
     private final int DEFAULT_CAPACITY = 32;
     private final int STACK_RESIZE_MASK = 0b11111; //31
 
@@ -72,6 +81,44 @@ final class JSONParser {
     private int stackSize = 0;
 
     private ParserState state = null;
+    private boolean firstValue = true;
+
+    private boolean deferred = false;
+
+    // Compact mode writes the tokens to the tape instead of building nodes. The stack then
+    // holds nodes of frames that are reused per depth, tapeSlots the tape entries of the
+    // stack to close, and leaf is the one node every value is read into.
+    private JSONTape tape = null;
+    private JSONNode[] frames = null;
+    private int[] tapeSlots = null;
+    private JSONNode leaf = null;
+
+    // Container types of a validation, one bit per level that is set for arrays
+    private long[] containers = null;
+    private int depth = 0;
+    private boolean strict = false;
+    private boolean decodeNumbers = false;
+    private JSONSymbolTable symbols = null;
+    private JSONStringCache strings = null;
+    private long valueCacheSize = 0;
+    private byte[] actions = ACTIONS;
+
+    private boolean compact = false;
+    private boolean indexed = false;
+    // Whether the options keep state on the nodes, see JSONOptionNode
+    private boolean optionNodes = false;
+    private JSONParseOptions options = null;
+
+    private JSONPaths paths = null;
+    private JSONPaths.Node[] projections = null;
+    private JSONPaths.Node selectedField = null;
+    private boolean resumable = false;
+    private int markPos;
+    private ParserState markState;
+    private boolean markFirstValue;
+    private int markStackSize;
+    private JSONNode markParent;
+    private JSONNode markLastChild;
 
     public enum ParserState {
         ObjectReadKey,
@@ -82,18 +129,275 @@ final class JSONParser {
         ArrayReadComma
     }
 
+    // Character classes of the ASCII range, anything above is CLASS_OTHER
+    private static final int CLASS_OTHER = 0;
+    private static final int CLASS_SPACE = 1;
+    private static final int CLASS_DOUBLE_QUOTE = 2;
+    private static final int CLASS_SINGLE_QUOTE = 3;
+    private static final int CLASS_CURLY_OPEN = 4;
+    private static final int CLASS_CURLY_CLOSE = 5;
+    private static final int CLASS_SQUARE_OPEN = 6;
+    private static final int CLASS_SQUARE_CLOSE = 7;
+    private static final int CLASS_COLON = 8;
+    private static final int CLASS_COMMA = 9;
+    private static final int CLASS_MINUS = 10;
+    private static final int CLASS_PLUS = 11;
+    private static final int CLASS_DIGIT = 12;
+    private static final int CLASS_LETTER = 13;
+    private static final int CLASS_DOT = 14;
+    private static final int CLASS_UNDERSCORE = 15;
+    private static final int CLASS_COUNT = 16;
+
+    // Actions of parseValues(), looked up by state and character class
+    private static final int ERROR = 0;
+    private static final int SKIP_SPACE = 1;
+    private static final int KEY_SINGLE_QUOTED = 2;
+    private static final int KEY_DOUBLE_QUOTED = 3;
+    private static final int KEY_UNQUOTED = 4;
+    private static final int COLON = 5;
+    private static final int OPEN_OBJECT = 6;
+    private static final int OPEN_ARRAY = 7;
+    private static final int VALUE_SINGLE_QUOTED = 8;
+    private static final int VALUE_DOUBLE_QUOTED = 9;
+    private static final int VALUE_NUMBER = 10;
+    private static final int VALUE_LITERAL = 11;
+    private static final int OBJECT_COMMA = 12;
+    private static final int CLOSE_EMPTY_OBJECT = 13;
+    private static final int CLOSE_OBJECT = 14;
+    private static final int ELEMENT_SINGLE_QUOTED = 15;
+    private static final int ELEMENT_DOUBLE_QUOTED = 16;
+    private static final int ELEMENT_NUMBER = 17;
+    private static final int ELEMENT_LITERAL = 18;
+    private static final int SKIP_ELEMENT = 19;
+    private static final int ARRAY_COMMA = 20;
+    private static final int CLOSE_EMPTY_ARRAY = 21;
+    private static final int CLOSE_ARRAY = 22;
+    private static final int VALUE_KEYWORD = 23;
+    private static final int ELEMENT_KEYWORD = 24;
+
+    private static final byte[] CHAR_CLASSES = new byte[128];
+    // Lenient syntax: single quoted and unquoted strings, leading plus, any case of null/true/false
+    private static final byte[] ACTIONS = new byte[ParserState.values().length * CLASS_COUNT];
+    // RFC 8259 only, none of the above
+    private static final byte[] STRICT_ACTIONS = new byte[ParserState.values().length * CLASS_COUNT];
+
+    static {
+        CHAR_CLASSES[' '] = CHAR_CLASSES['\t'] = CHAR_CLASSES['\n'] = CHAR_CLASSES['\r'] = CLASS_SPACE;
+        CHAR_CLASSES['"'] = CLASS_DOUBLE_QUOTE;
+        CHAR_CLASSES['\''] = CLASS_SINGLE_QUOTE;
+        CHAR_CLASSES['{'] = CLASS_CURLY_OPEN;
+        CHAR_CLASSES['}'] = CLASS_CURLY_CLOSE;
+        CHAR_CLASSES['['] = CLASS_SQUARE_OPEN;
+        CHAR_CLASSES[']'] = CLASS_SQUARE_CLOSE;
+        CHAR_CLASSES[':'] = CLASS_COLON;
+        CHAR_CLASSES[','] = CLASS_COMMA;
+        CHAR_CLASSES['-'] = CLASS_MINUS;
+        CHAR_CLASSES['+'] = CLASS_PLUS;
+        CHAR_CLASSES['.'] = CLASS_DOT;
+        CHAR_CLASSES['_'] = CLASS_UNDERSCORE;
+        for (char c = '0'; c <= '9'; c++)
+            CHAR_CLASSES[c] = CLASS_DIGIT;
+        for (char c = 'a'; c <= 'z'; c++)
+            CHAR_CLASSES[c] = CHAR_CLASSES[c - 'a' + 'A'] = CLASS_LETTER;
+
+        for (ParserState state : ParserState.values())
+            action(state, CLASS_SPACE, SKIP_SPACE);
+
+        action(ParserState.ObjectReadKey, CLASS_DOUBLE_QUOTE, KEY_DOUBLE_QUOTED);
+        action(ParserState.ObjectReadKey, CLASS_CURLY_CLOSE, CLOSE_EMPTY_OBJECT);
+        lenient(ParserState.ObjectReadKey, CLASS_SINGLE_QUOTE, KEY_SINGLE_QUOTED);
+        lenient(ParserState.ObjectReadKey, CLASS_LETTER, KEY_UNQUOTED);
+        lenient(ParserState.ObjectReadKey, CLASS_DIGIT, KEY_UNQUOTED);
+        lenient(ParserState.ObjectReadKey, CLASS_DOT, KEY_UNQUOTED);
+        lenient(ParserState.ObjectReadKey, CLASS_UNDERSCORE, KEY_UNQUOTED);
+
+        action(ParserState.ObjectReadColon, CLASS_COLON, COLON);
+
+        action(ParserState.ObjectReadValue, CLASS_CURLY_OPEN, OPEN_OBJECT);
+        action(ParserState.ObjectReadValue, CLASS_SQUARE_OPEN, OPEN_ARRAY);
+        action(ParserState.ObjectReadValue, CLASS_DOUBLE_QUOTE, VALUE_DOUBLE_QUOTED);
+        action(ParserState.ObjectReadValue, CLASS_MINUS, VALUE_NUMBER);
+        action(ParserState.ObjectReadValue, CLASS_DIGIT, VALUE_NUMBER);
+        strict(ParserState.ObjectReadValue, CLASS_LETTER, VALUE_KEYWORD);
+        lenient(ParserState.ObjectReadValue, CLASS_SINGLE_QUOTE, VALUE_SINGLE_QUOTED);
+        lenient(ParserState.ObjectReadValue, CLASS_PLUS, VALUE_NUMBER);
+        lenient(ParserState.ObjectReadValue, CLASS_LETTER, VALUE_LITERAL);
+        lenient(ParserState.ObjectReadValue, CLASS_DOT, VALUE_LITERAL);
+        lenient(ParserState.ObjectReadValue, CLASS_UNDERSCORE, VALUE_LITERAL);
+
+        action(ParserState.ObjectReadComma, CLASS_COMMA, OBJECT_COMMA);
+        action(ParserState.ObjectReadComma, CLASS_CURLY_CLOSE, CLOSE_OBJECT);
+
+        action(ParserState.ArrayReadValue, CLASS_CURLY_OPEN, OPEN_OBJECT);
+        action(ParserState.ArrayReadValue, CLASS_SQUARE_OPEN, OPEN_ARRAY);
+        action(ParserState.ArrayReadValue, CLASS_DOUBLE_QUOTE, ELEMENT_DOUBLE_QUOTED);
+        action(ParserState.ArrayReadValue, CLASS_MINUS, ELEMENT_NUMBER);
+        action(ParserState.ArrayReadValue, CLASS_DIGIT, ELEMENT_NUMBER);
+        action(ParserState.ArrayReadValue, CLASS_SQUARE_CLOSE, CLOSE_EMPTY_ARRAY);
+        strict(ParserState.ArrayReadValue, CLASS_LETTER, ELEMENT_KEYWORD);
+        lenient(ParserState.ArrayReadValue, CLASS_SINGLE_QUOTE, ELEMENT_SINGLE_QUOTED);
+        lenient(ParserState.ArrayReadValue, CLASS_PLUS, ELEMENT_NUMBER);
+        lenient(ParserState.ArrayReadValue, CLASS_LETTER, ELEMENT_LITERAL);
+        lenient(ParserState.ArrayReadValue, CLASS_DOT, ELEMENT_LITERAL);
+
+        action(ParserState.ArrayReadComma, CLASS_COMMA, ARRAY_COMMA);
+        action(ParserState.ArrayReadComma, CLASS_SQUARE_CLOSE, CLOSE_ARRAY);
+    }
+
+    private static void action(ParserState state, int charClass, int action) {
+        lenient(state, charClass, action);
+        strict(state, charClass, action);
+    }
+
+    private static void lenient(ParserState state, int charClass, int action) {
+        ACTIONS[state.ordinal() * CLASS_COUNT + charClass] = (byte) action;
+    }
+
+    private static void strict(ParserState state, int charClass, int action) {
+        STRICT_ACTIONS[state.ordinal() * CLASS_COUNT + charClass] = (byte) action;
+    }
+
     JSONParser(final String source) {
-        length = source.length();
-        charBuffer = new char[length];
+        int length = source.length();
+        char[] charBuffer = new char[length];
         source.getChars(0, length, charBuffer, 0);
+        this.source = new JSONSource.Chars(charBuffer, 0, length);
+        this.length = length;
     }
 
-    public void push(JSONNode node) {
-        stackTop.addChild(node);
+    JSONParser(final char[] buffer, int offset, int length) {
+        this(new JSONSource.Chars(buffer, offset, length));
+    }
+
+    JSONParser(final CharSequence source) {
+        this(new JSONSource.Sequence(source));
+    }
+
+    JSONParser(final byte[] utf8, int offset, int length) {
+        this(new JSONSource.Utf8(utf8, offset, length));
+    }
+
+    JSONParser(final Reader reader) {
+        this(new JSONSource.ChunkedChars(reader));
+    }
+
+    JSONParser(final InputStream utf8) {
+        this(new JSONSource.ChunkedUtf8(utf8));
+    }
+
+    JSONParser(final ByteBuffer utf8) {
+        this(new JSONSource.Utf8Buffer(utf8));
+    }
+
+    JSONParser(final JSONSource source) {
+        this.source = source;
+        this.length = source.limit;
+    }
+
+    // Takes the source of the next document. Nodes handed out for the previous document
+    // are recycled when the arena is enabled, so that document must no longer be used.
+    void reset(JSONSource source) {
+        this.source = source;
+        this.length = source.limit;
+        root = null;
+        pos = 0;
+        stackTop = null;
+        stackSize = 0;
+        state = null;
+        firstValue = true;
+        resumable = false;
+        arenaSize = 0;
+    }
+
+    void enableArena() {
+        if (arena == null) {
+            arena = new JSONNode[DEFAULT_CAPACITY];
+        }
+    }
+
+    // Leaves the nodes handed out so far to the document that uses them.
+    void detachArena() {
+        arena = new JSONNode[arena.length];
+        arenaSize = 0;
+    }
 
+    // Nodes get the source when they are created, so no pass over the finished tree is needed.
+    private JSONNode newNode(JSONType type, int index) {
+        if (arena == null) {
+            return createNode(type, index);
+        }
+        if (arenaSize == arena.length) {
+            arena = Arrays.copyOf(arena, arenaSize * 2);
+        }
+        JSONNode node = arena[arenaSize];
+        if (node == null) {
+            node = createNode(type, index);
+            arena[arenaSize] = node;
+        } else {
+            node.reset(type, index, source);
+        }
+        arenaSize++;
+        return node;
+    }
+
+    private JSONNode createNode(JSONType type, int index) {
+        return optionNodes ? new JSONOptionNode(type, index, source) : new JSONNode(type, index, source);
+    }
+
+    // Node of a container or field that goes on the stack
+    private JSONNode newStackNode(JSONType type, int index) {
+        if (tape == null) {
+            return newNode(type, index);
+        }
+        if (stackSize == frames.length) {
+            frames = Arrays.copyOf(frames, stackSize * 2);
+        }
+        JSONNode node = frames[stackSize];
+        if (node == null) {
+            node = createNode(type, index);
+            frames[stackSize] = node;
+        } else {
+            node.reset(type, index, source);
+        }
+        return node;
+    }
+
+    private JSONNode newLeaf(JSONType type, int index) {
+        if (tape == null) {
+            return newNode(type, index);
+        }
+        leaf.reset(type, index, source);
+        return leaf;
+    }
+
+    // Called once the type and end of a value are known
+    private void addLeaf(JSONNode node) {
+        if (tape == null) {
+            stackTop.addChild(node);
+        } else {
+            tape.add(node.type, node.startIndex, node.endIndex);
+        }
+    }
+
+    // Writes type, end and skip of the stack node at slot once its subtree is read
+    private void closeEntry(JSONNode node, int slot) {
+        if (tape != null) {
+            tape.close(tapeSlots[slot], node.type, node.endIndex);
+        }
+    }
+
+    public void push(JSONNode node) {
         if ((stackSize & STACK_RESIZE_MASK) == STACK_RESIZE_MASK)
             reallocate(stackSize + STACK_RESIZE_MASK + 1);
-        
+
+        if (tape == null)
+            stackTop.addChild(node);
+        else
+            tapeSlots[stackSize] = tape.open(node.startIndex);
+
+        if (projections != null)
+            projections[stackSize] = project(node);
+
         stack[stackSize++] = node;
         stackTop = node;
     }
@@ -107,6 +411,7 @@ final class JSONParser {
     }
 
     public void drop() {
+        closeEntry(stackTop, stackSize - 1);
         stackTop = stack[--stackSize - 1];
     }
 
@@ -114,505 +419,988 @@ final class JSONParser {
         JSONNode[] new_data = new JSONNode[size];
         System.arraycopy(stack, 0, new_data, 0, stack.length);
         stack = new_data;
+        if (projections != null)
+            projections = Arrays.copyOf(projections, size);
+        if (tape != null)
+            tapeSlots = Arrays.copyOf(tapeSlots, size);
     }
 
     public JSONNode getRoot() {
         return root;
     }
 
+    // Builds the document the way the options set with setOptions() ask for, a full tree
+    // by default
     void parse() throws JSONException {
+        if (valueCacheSize > 0) {
+            source.values = new JSONValueCache(valueCacheSize);
+        }
+        source.strings = strings;
+        if (deferred) {
+            source.options = options;
+        }
+        if (indexed && parseIndexed()) {
+            return;
+        }
+        if (paths != null && projections == null) {
+            projections = new JSONPaths.Node[stack.length];
+        }
+        if (compact) {
+            parseCompact();
+        } else {
+            parse(source.offset);
+        }
+    }
+
+    private void parse(int start) throws JSONException {
+        try {
+            pos = start;
+            parseRoot();
+            ++pos;
+            parseValues();
+            if (stackSize != 0)
+                throw new JSONException("Unexpected end of JSONObject");
+            if (strict)
+                checkEnd();
+        } catch (JSONException e) {
+            throw e;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new JSONException("Unexpected end of input", pos);
+        } catch (UncheckedIOException e) {
+            throw new JSONException(e.getCause());
+        } catch (Exception e) {
+            throw new JSONException(e);
+        }
+    }
+
+    void setOptions(JSONParseOptions options) {
+        if (options.isDeferred() && (options.isCompact() || options.getPaths() != null))
+            throw new IllegalArgumentException("Deferred parsing can not be combined with compact or projected parsing");
+        strict = options.isStrict();
+        decodeNumbers = options.isDecodeNumbers();
+        symbols = options.getSymbols();
+        strings = options.getStrings();
+        valueCacheSize = options.getValueCacheSize();
+        actions = strict ? STRICT_ACTIONS : ACTIONS;
+        paths = options.getPaths();
+        projections = null;
+        deferred = options.isDeferred();
+        compact = options.isCompact();
+        // The index builds plain trees only
+        indexed = options.isIndexed() && !strict && !decodeNumbers && symbols == null && strings == null
+                && paths == null && !deferred && !compact;
+        this.options = deferred ? options.copy() : null;
+        optionNodes = decodeNumbers || symbols != null || strings != null || valueCacheSize > 0 || deferred
+                || compact;
+    }
+
+    // Only white space may follow the document in strict mode
+    private void checkEnd() throws JSONException {
+        while (pos < length && !source.isEnd(pos) && JSONScanner.isWhiteSpace(source.charAt(pos)))
+            ++pos;
+        if (pos < length && !source.isEnd(pos))
+            throw new JSONException("Unexpected character after the end of the document", pos);
+    }
+
+    // Builds the children of a container skipped by a deferred parse, deferring the
+    // containers nested in it in turn.
+    static void expand(JSONNode node) throws JSONException {
+        JSONParser parser = new JSONParser(node.source);
+        parser.setOptions(node.source.options);
+        parser.length = node.endIndex;
+        parser.parse(node.startIndex);
+        node.child = parser.root.child;
+        node.lastChild = parser.root.lastChild;
+    }
+
+    // Stores the document as a tape, see JSONTape. The tokens go to the tape as they are
+    // scanned, so apart from the tape itself only a node per nesting level is allocated.
+    private void parseCompact() throws JSONException {
+        tape = new JSONTape(source, symbols);
+        frames = new JSONNode[stack.length];
+        tapeSlots = new int[stack.length];
+        leaf = createNode(JSONType.Null, 0);
+        try {
+            parse(source.offset);
+            root = tape.root();
+        } finally {
+            tape = null;
+        }
+    }
+
+    // Builds the tree from the structural index of UTF-8 input. Returns false for input
+    // the index does not accept (lenient syntax, errors), which then goes through the
+    // parser, so results and errors match.
+    private boolean parseIndexed() {
+        ByteBuffer bytes = source.asByteBuffer();
+        if (bytes == null) {
+            return false;
+        }
+        root = JSONStructuralIndex.scan(source, bytes).build();
+        return root != null;
+    }
+
+    // Runs the grammar of parse() without creating nodes. Returns the position of the
+    // first error, or -1 if the document is valid.
+    int validate() {
         try {
-            pos = 0;
+            pos = source.offset;
             skipWhiteSpace();
-            switch (charBuffer[pos]) {
-                case Char_CURLY_OPEN:
-                    stack[stackSize++] = JSONNode.createObjectNode(pos);
+            char c = source.charAt(pos);
+            if (c != Char_CURLY_OPEN && c != Char_SQUARE_OPEN)
+                return pos;
+            if (containers == null)
+                containers = new long[1];
+            depth = 0;
+            open(c == Char_SQUARE_OPEN);
+            ++pos;
+            int error = validateValues();
+            if (error >= 0)
+                return error;
+            if (depth != 0)
+                return pos;
+            if (strict)
+                checkEnd();
+            return -1;
+        } catch (JSONException e) {
+            return e.getPosition() < 0 ? pos : e.getPosition();
+        } catch (ArrayIndexOutOfBoundsException e) {
+            return pos;
+        }
+    }
+
+    private int validateValues() throws JSONException {
+        final byte[] classes = CHAR_CLASSES;
+        final byte[] actions = this.actions;
+        for (; pos < length && depth > 0; ++pos) {
+            char c = source.charAt(pos);
+            switch (actions[state.ordinal() * CLASS_COUNT + (c < classes.length ? classes[c] : CLASS_OTHER)]) {
+                case SKIP_SPACE:
+                    trySkipWhiteSpace();
+                    break;
+                case KEY_SINGLE_QUOTED:
+                    skipSingleQuotedString();
+                    state = ParserState.ObjectReadColon;
+                    firstValue = false;
+                    break;
+                case KEY_DOUBLE_QUOTED:
+                    skipString();
+                    state = ParserState.ObjectReadColon;
+                    firstValue = false;
+                    break;
+                case KEY_UNQUOTED:
+                    skipUnquotedStringValue();
+                    state = ParserState.ObjectReadColon;
+                    firstValue = false;
+                    --pos;
+                    break;
+                case COLON:
+                    state = ParserState.ObjectReadValue;
+                    break;
+                case OPEN_OBJECT:
+                    open(false);
+                    break;
+                case OPEN_ARRAY:
+                    open(true);
+                    break;
+                case VALUE_SINGLE_QUOTED:
+                case ELEMENT_SINGLE_QUOTED:
+                    skipSingleQuotedString();
+                    valueValidated();
+                    break;
+                case VALUE_DOUBLE_QUOTED:
+                case ELEMENT_DOUBLE_QUOTED:
+                    skipString();
+                    valueValidated();
+                    break;
+                case VALUE_NUMBER:
+                case ELEMENT_NUMBER:
+                    skipNumber(c);
+                    --pos;
+                    valueValidated();
+                    break;
+                case VALUE_LITERAL:
+                case ELEMENT_LITERAL:
+                    skipLiteral();
+                    --pos;
+                    valueValidated();
+                    break;
+                case VALUE_KEYWORD:
+                case ELEMENT_KEYWORD:
+                    skipKeyword(c);
+                    --pos;
+                    valueValidated();
+                    break;
+                case OBJECT_COMMA:
                     state = ParserState.ObjectReadKey;
                     break;
-                case Char_SQUARE_OPEN:
-                    stack[stackSize++] = JSONNode.createArrayNode(pos);
+                case ARRAY_COMMA:
                     state = ParserState.ArrayReadValue;
                     break;
+                case CLOSE_EMPTY_OBJECT:
+                case CLOSE_EMPTY_ARRAY:
+                    if (!firstValue)
+                        return pos;
+                    close();
+                    break;
+                case CLOSE_OBJECT:
+                case CLOSE_ARRAY:
+                    close();
+                    break;
                 default:
-                    throw new JSONException("Must be either object or array", pos);
+                    return pos;
             }
+        }
+        return -1;
+    }
 
-            root = stack[0];
-            stackTop = root;
-
-            boolean firstValue = true;
-            for (++pos; pos < length && stackSize > 0; ++pos) {
-                char c = charBuffer[pos];
-                JSONNode node;
-                switch (state) {
-                    case ObjectReadKey : {
-                        switch (c) {
-                            case Char_Single_QUOTE: {
-                                push(JSONNode.createFieldNode(pos + 1));
-                                if (skipSingleQuotedString()) {
-                                    //Escaped string detected
-                                    stackTop.type = JSONType.EField;
-                                }
-                                stackTop.endIndex = pos;
-                                state = ParserState.ObjectReadColon;
-                                firstValue = false;
-                                break;
-                            }
-                            case Char_Double_QUOTE: {
-                                push(JSONNode.createFieldNode(pos + 1));
-                                if (skipString()) {
-                                    //Escaped string detected
-                                    stackTop.type = JSONType.EField;
-                                }
-                                stackTop.endIndex = pos;
-                                state = ParserState.ObjectReadColon;
-                                firstValue = false;
-                                break;
-                            }
-
-                            case Char_CURLY_CLOSE: {
-                                node = pop();
-                                if (node == null || node.type != JSONType.JSONObject || !firstValue)
-                                    throw new JSONException("Unexpected end of object character", pos);
-
-
-                                node.endIndex = pos + 1;
-                                if (stackTop != null && (stackTop.type == JSONType.Field || stackTop.type == JSONType.EField))
-                                    drop();
-
-                                switch(stackTop.type) {
-                                    case JSONArray: {
-                                        state = ParserState.ArrayReadComma;
-                                        break;
-                                    }
-                                    case JSONObject : {
-                                        state = ParserState.ObjectReadComma;
-                                        break;
-                                    }
-                                    default: {
-                                        throw new JSONException("Unexpected Node Type.", pos);
-                                    }
-                                }
-                                firstValue = false;
-                                break;
-                            }
-
-                            case Char_SPACE:
-                            case Char_TAB:
-                            case Char_NL:
-                            case Char_CR:
-                                trySkipWhiteSpace();
-                                break;
-                            default: {
-                                if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '_') {
-                                    node = JSONNode.createFieldNode(pos);
-                                    push(node);
-                                    skipUnquotedStringValue();
-                                    node.type = JSONType.Field;
-                                    node.endIndex = pos;
-
-                                    state = ParserState.ObjectReadColon;
-                                    firstValue = false;
-                                    --pos;
-                                    break;
-                                } else {
-                                    throw new JSONException("Unexpected character sequesnce", pos);
-                                }
-                            }
-                        }
-                        break;
-                    }
-                    case ObjectReadColon: {
-                        switch (c) {
-                            case Char_COLON: {
-                                state = ParserState.ObjectReadValue;
-                                break;
-                            }
-                            case Char_SPACE:
-                            case Char_TAB:
-                            case Char_NL:
-                            case Char_CR:
-                                trySkipWhiteSpace();
-                                break;
-                            default : {
-                                throw new JSONException("Unexpected character sequesnce", pos);
-                            }
-                        }
+    private void open(boolean array) {
+        if (depth == containers.length * 64)
+            containers = Arrays.copyOf(containers, containers.length * 2);
+        if (array) {
+            containers[depth >> 6] |= 1L << depth;
+            state = ParserState.ArrayReadValue;
+        } else {
+            containers[depth >> 6] &= ~(1L << depth);
+            state = ParserState.ObjectReadKey;
+        }
+        depth++;
+        firstValue = true;
+    }
+
+    private void close() {
+        if (--depth > 0) {
+            boolean array = (containers[(depth - 1) >> 6] & (1L << (depth - 1))) != 0;
+            state = array ? ParserState.ArrayReadComma : ParserState.ObjectReadComma;
+        }
+        firstValue = false;
+    }
+
+    private void valueValidated() {
+        state = state == ParserState.ObjectReadValue ? ParserState.ObjectReadComma : ParserState.ArrayReadComma;
+        firstValue = false;
+    }
+
+    // Parses as much of a push source as is currently buffered. When the input runs out
+    // in the middle of a token, everything done for that token is rolled back so the
+    // token is read again from its first character on the next call.
+    boolean resume() throws JSONException {
+        try {
+            if (!resumable) {
+                resumable = true;
+                pos = source.offset;
+            }
+            if (root == null) {
+                int start = pos;
+                try {
+                    parseRoot();
+                } catch (JSONSource.Incomplete e) {
+                    pos = start;
+                    stackSize = 0;
+                    return false;
+                }
+                ++pos;
+            }
+            if (stackSize > 0) {
+                try {
+                    parseValues();
+                } catch (JSONSource.Incomplete e) {
+                    rollback();
+                    return false;
+                }
+                if (stackSize != 0)
+                    throw new JSONException("Unexpected end of JSONObject");
+            }
+            return true;
+        } catch (JSONException e) {
+            throw e;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new JSONException("Unexpected end of input", pos);
+        } catch (Exception e) {
+            throw new JSONException(e);
+        }
+    }
+
+    // Moves a resumed parse to the next window of a larger input, which starts at the
+    // position the parse stopped at. Nodes created so far keep the window they were
+    // read from.
+    void rebase(JSONSource window) {
+        source = window;
+        length = window.partial ? Integer.MAX_VALUE : window.limit;
+        pos = window.offset;
+    }
+
+    int getPosition() {
+        return pos;
+    }
 
+    // The strict check that only white space follows a document completed by resume(),
+    // false when the input runs out before the check is done
+    boolean resumeEnd() throws JSONException {
+        try {
+            checkEnd();
+            return true;
+        } catch (JSONSource.Incomplete e) {
+            return false;
+        }
+    }
+
+    private void mark() {
+        markPos = pos;
+        markState = state;
+        markFirstValue = firstValue;
+        markStackSize = stackSize;
+        markParent = stackTop;
+        markLastChild = stackTop.lastChild;
+    }
+
+    private void rollback() {
+        pos = markPos;
+        state = markState;
+        firstValue = markFirstValue;
+        stackSize = markStackSize;
+        stackTop = markParent;
+        markParent.lastChild = markLastChild;
+        if (markLastChild == null) {
+            markParent.child = null;
+        } else {
+            markLastChild.next = null;
+        }
+    }
+
+    private void parseRoot() throws JSONException {
+        skipWhiteSpace();
+        switch (source.charAt(pos)) {
+            case Char_CURLY_OPEN:
+                stack[stackSize] = newStackNode(JSONType.JSONObject, pos);
+                state = ParserState.ObjectReadKey;
+                break;
+            case Char_SQUARE_OPEN:
+                stack[stackSize] = newStackNode(JSONType.JSONArray, pos);
+                state = ParserState.ArrayReadValue;
+                break;
+            default:
+                throw new JSONException("Must be either object or array", pos);
+        }
+        if (tape != null)
+            tapeSlots[stackSize] = tape.open(pos);
+        stackSize++;
+
+        root = stack[0];
+        stackTop = root;
+        firstValue = true;
+        if (projections != null)
+            projections[0] = paths.root;
+    }
+
+    private void parseValues() throws JSONException {
+        final byte[] classes = CHAR_CLASSES;
+        final byte[] actions = this.actions;
+        for (; pos < length && stackSize > 0; ++pos) {
+            if (resumable) {
+                mark();
+            }
+            char c = source.charAt(pos);
+            int action = actions[state.ordinal() * CLASS_COUNT + (c < classes.length ? classes[c] : CLASS_OTHER)];
+            if (projections != null && state == ParserState.ArrayReadValue && action != SKIP_SPACE && action != CLOSE_EMPTY_ARRAY
+                    && projections[stackSize - 1].elements() == null) {
+                action = SKIP_ELEMENT;
+            }
+            JSONNode node;
+            switch (action) {
+                case SKIP_SPACE: {
+                    trySkipWhiteSpace();
+                    break;
+                }
+                case KEY_SINGLE_QUOTED: {
+                    if (projections != null && !selectField()) {
                         break;
                     }
-                    case ObjectReadValue : {
-                        switch (c) {
-                            case Char_CURLY_OPEN: {
-                                push(JSONNode.createObjectNode(pos));
-
-                                state = ParserState.ObjectReadKey;
-                                firstValue = true;
-                                break;
-                            }
-                            case Char_SQUARE_OPEN: {
-                                push(JSONNode.createArrayNode(pos));
-
-                                state = ParserState.ArrayReadValue;
-                                firstValue = true;
-                                break;
-                            }
-                            case Char_Single_QUOTE: {
-                                node = JSONNode.createStringValueNode(pos + 1);
-                                stackTop.addChild(node);
-                                if (skipSingleQuotedString()) {
-                                    //Escaped string detected
-                                    node.type = JSONType.EString;
-                                }
-                                node.endIndex = pos;
-                                drop();
-                                state = ParserState.ObjectReadComma;
-                                firstValue = false;
-                                break;
-                            }
-                            case Char_Double_QUOTE: {
-                                node = JSONNode.createStringValueNode(pos + 1);
-                                stackTop.addChild(node);
-                                if (skipString()) {
-                                    //Escaped string detected
-                                    node.type = JSONType.EString;
-                                }
-                                node.endIndex = pos;
-                                drop();
-                                state = ParserState.ObjectReadComma;
-                                firstValue = false;
-                                break;
-                            }
-                            case '+':
-                            case '-':
-                            case '0':
-                            case '1':
-                            case '2':
-                            case '3':
-                            case '4':
-                            case '5':
-                            case '6':
-                            case '7':
-                            case '8':
-                            case '9': { //number starts from one of these symbols
-                                node = JSONNode.createIntegerValueNode(pos);
-                                stackTop.addChild(node);
-                                if (skipNumber(c)) { //Float detected
-                                    node.type = JSONType.Float;
-                                }
-                                node.endIndex = pos;
-                                --pos;
-                                if (stackTop.type == JSONType.Field || stackTop.type == JSONType.EField)
-                                    drop();
-
-                                state = ParserState.ObjectReadComma;
-                                firstValue = false;
-                                break;
-                            }
-
-                            case Char_SPACE:
-                            case Char_TAB:
-                            case Char_NL:
-                            case Char_CR:
-                                trySkipWhiteSpace();
-                                break;
-                            default : {
-                                if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '_') {
-                                    if (charBuffer.length >= pos + 4 && (charBuffer[pos] == Char_n || charBuffer[pos] == Char_N) && charBuffer[pos + 1] == Char_u && charBuffer[pos + 2] == Char_l && charBuffer[pos + 3] == Char_l) {
-                                        node = JSONNode.createNullValueNode(pos);
-                                        stackTop.addChild(node);
-                                        pos += 4;
-                                        node.endIndex = pos;
-                                    } else if (charBuffer.length >= pos + 5 && (charBuffer[pos] == Char_f || charBuffer[pos] == Char_F) && charBuffer[pos + 1] == Char_a && charBuffer[pos + 2] == Char_l && charBuffer[pos + 3] == Char_s && charBuffer[pos + 4] == Char_e) {
-                                        node = JSONNode.createBooleanNode(pos, false);
-                                        stackTop.addChild(node);
-                                        pos += 5;
-                                        node.endIndex = pos;
-                                    } else if (charBuffer.length >= pos + 4 && (charBuffer[pos] == Char_t || charBuffer[pos] == Char_T) && charBuffer[pos + 1] == Char_r && charBuffer[pos + 2] == Char_u && charBuffer[pos + 3] == Char_e) {
-                                        node = JSONNode.createBooleanNode(pos, true);
-                                        stackTop.addChild(node);
-                                        pos += 4;
-                                        node.endIndex = pos;
-                                    } else {
-                                        node = JSONNode.createStringValueNode(pos);
-                                        stackTop.addChild(node);
-                                        skipUnquotedStringValue();
-                                        node.type = JSONType.String;
-                                        node.endIndex = pos;
-                                    }
-                                    if (stackTop.type == JSONType.Field || stackTop.type == JSONType.EField)
-                                        drop();
-
-                                    state = ParserState.ObjectReadComma;
-                                    firstValue = false;
-                                    --pos;
-                                    break;
-                                } else {
-                                    throw new JSONException("Unexpected character sequesnce", pos);
-                                }
-                            }
-                        }
+                    push(newStackNode(JSONType.Field, pos + 1));
+                    if (skipSingleQuotedString()) {
+                        //Escaped string detected
+                        stackTop.type = JSONType.EField;
+                    } else if (symbols != null) {
+                        symbols.assign((JSONOptionNode) stackTop, source, stackTop.startIndex, pos);
+                    }
+                    stackTop.endIndex = pos;
+                    state = ParserState.ObjectReadColon;
+                    firstValue = false;
+                    break;
+                }
+                case KEY_DOUBLE_QUOTED: {
+                    if (projections != null && !selectField()) {
                         break;
                     }
-                    case ObjectReadComma : {
-                        switch (c) {
-                            case Char_COMMA: {
-                                state = ParserState.ObjectReadKey;
-                                break;
-                            }
-                            case Char_CURLY_CLOSE: {
-                                node = pop();
-                                if (node == null || node.type != JSONType.JSONObject)
-                                    throw new JSONException("Unexpected end of object character", pos);
-
-                                node.endIndex = pos + 1;
-                                if (stackTop != null && (stackTop.type == JSONType.Field || stackTop.type == JSONType.EField))
-                                    drop();
-
-                                switch(stackTop.type) {
-                                    case JSONArray: {
-                                        state = ParserState.ArrayReadComma;
-                                        break;
-                                    }
-                                    case JSONObject : {
-                                        state = ParserState.ObjectReadComma;
-                                        break;
-                                    }
-                                    default: {
-                                        throw new JSONException("Unexpected Node Type.", pos);
-                                    }
-                                }
-                                firstValue = false;
-                                break;
-                            }
-                            case Char_SPACE:
-                            case Char_TAB:
-                            case Char_NL:
-                            case Char_CR:
-                                trySkipWhiteSpace();
-                                break;
-                            default : {
-                                throw new JSONException("Unexpected character sequesnce", pos);
-                            }
-                        }
+                    push(newStackNode(JSONType.Field, pos + 1));
+                    if (skipString()) {
+                        //Escaped string detected
+                        stackTop.type = JSONType.EField;
+                    } else if (symbols != null) {
+                        symbols.assign((JSONOptionNode) stackTop, source, stackTop.startIndex, pos);
+                    }
+                    stackTop.endIndex = pos;
+                    state = ParserState.ObjectReadColon;
+                    firstValue = false;
+                    break;
+                }
+                case KEY_UNQUOTED: {
+                    if (projections != null && !selectField()) {
                         break;
                     }
+                    node = newStackNode(JSONType.Field, pos);
+                    push(node);
+                    skipUnquotedStringValue();
+                    node.type = JSONType.Field;
+                    node.endIndex = pos;
+                    if (symbols != null)
+                        symbols.assign((JSONOptionNode) node, source, node.startIndex, pos);
 
-                    case ArrayReadComma: {
-                        switch (c) {
-                            case Char_COMMA: {
-                                state = ParserState.ArrayReadValue;
-                                break;
-                            }
-                            case Char_SQUARE_CLOSE: {
-                                node = pop();
-                                if (node == null) {
-                                    throw new JSONException("Unexpected end of array character", pos);
-                                } else if (node.type != JSONType.JSONArray) {
-                                    if (node.endIndex == -1)
-                                        node.endIndex = pos;
-
-                                    node = pop();
-                                    if (node == null || node.type != JSONType.JSONArray)
-                                        throw new JSONException("Unexpected end of array", pos);
-                                }
-                                node.endIndex = pos + 1;
-                                if (stackTop != null && (stackTop.type == JSONType.Field || stackTop.type == JSONType.EField))
-                                    drop();
-
-                                switch(stackTop.type) {
-                                    case JSONArray: {
-                                        state = ParserState.ArrayReadComma;
-                                        break;
-                                    }
-                                    case JSONObject : {
-                                        state = ParserState.ObjectReadComma;
-                                        break;
-                                    }
-                                    default: {
-                                        throw new JSONException("Unexpected Node Type.", pos);
-                                    }
-                                }
-                                firstValue = false;
-                                break;
-                            }
-                            case Char_SPACE:
-                            case Char_TAB:
-                            case Char_NL:
-                            case Char_CR:
-                                trySkipWhiteSpace();
-                                break;
-                            default : {
-                                throw new JSONException("Unexpected character sequesnce", pos);
-                            }
-                        }
+                    state = ParserState.ObjectReadColon;
+                    firstValue = false;
+                    --pos;
+                    break;
+                }
+                case COLON: {
+                    state = ParserState.ObjectReadValue;
+                    break;
+                }
+                case OPEN_OBJECT: {
+                    if (deferred) {
+                        deferContainer(JSONType.JSONObject);
+                        valueRead();
                         break;
                     }
-                    case ArrayReadValue : {
-                        switch (c) {
-                            case Char_CURLY_OPEN: {
-                                push(JSONNode.createObjectNode(pos));
-
-                                state = ParserState.ObjectReadKey;
-                                firstValue = true;
-                                break;
-                            }
-                            case Char_SQUARE_OPEN: {
-                                push(JSONNode.createArrayNode(pos));
-
-                                state = ParserState.ArrayReadValue;
-                                firstValue = true;
-                                break;
-                            }
-                            case Char_Single_QUOTE: {
-                                node = JSONNode.createStringValueNode(pos + 1);
-                                stackTop.addChild(node);
-                                if (skipSingleQuotedString()) {
-                                    //Escaped string detected
-                                    node.type = JSONType.EString;
-                                }
-                                node.endIndex = pos;
-                                state = ParserState.ArrayReadComma;
-                                firstValue = false;
-                                break;
-                            }
-                            case Char_Double_QUOTE: {
-                                node = JSONNode.createStringValueNode(pos + 1);
-                                stackTop.addChild(node);
-                                if (skipString()) {
-                                    //Escaped string detected
-                                    node.type = JSONType.EString;
-                                }
-                                node.endIndex = pos;
-                                state = ParserState.ArrayReadComma;
-                                firstValue = false;
-                                break;
-                            }
-                            case '+':
-                            case '-':
-                            case '0':
-                            case '1':
-                            case '2':
-                            case '3':
-                            case '4':
-                            case '5':
-                            case '6':
-                            case '7':
-                            case '8':
-                            case '9': { // expecting numeric value
-                                node = JSONNode.createIntegerValueNode(pos);
-                                stackTop.addChild(node);
-                                if (skipNumber(c)) { //Float detected
-                                    node.type = JSONType.Float;
-                                }
-                                node.endIndex = pos;
-                                --pos;
-
-                                state = ParserState.ArrayReadComma;
-                                firstValue = false;
-                                break;
-                            }
-                            case Char_SQUARE_CLOSE: {
-                                node = pop();
-                                if (node == null || !firstValue) {
-                                    throw new JSONException("Unexpected end of array character", pos);
-                                } else if (node.type != JSONType.JSONArray) {
-                                    if (node.endIndex == -1)
-                                        node.endIndex = pos;
-
-                                    node = pop();
-                                    if (node == null || node.type != JSONType.JSONArray)
-                                        throw new JSONException("Unexpected end of array", pos);
-                                }
-                                node.endIndex = pos + 1;
-                                if (stackTop != null && (stackTop.type == JSONType.Field || stackTop.type == JSONType.EField))
-                                    drop();
-
-                                switch(stackTop.type) {
-                                    case JSONArray: {
-                                        state = ParserState.ArrayReadComma;
-                                        break;
-                                    }
-                                    case JSONObject : {
-                                        state = ParserState.ObjectReadComma;
-                                        break;
-                                    }
-                                    default: {
-                                        throw new JSONException("Unexpected Node Type.", pos);
-                                    }
-                                }
-                                firstValue = false;
-                                break;
-                            }
-                            case Char_SPACE:
-                            case Char_TAB:
-                            case Char_NL:
-                            case Char_CR:
-                                trySkipWhiteSpace();
-                                break;
-                            default : {
-                                if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.') {
-                                    if (charBuffer.length >= pos + 4 && (charBuffer[pos] == Char_n || charBuffer[pos] == Char_N) && charBuffer[pos + 1] == Char_u && charBuffer[pos + 2] == Char_l && charBuffer[pos + 3] == Char_l) {
-                                        node = JSONNode.createNullValueNode(pos);
-                                        stackTop.addChild(node);
-                                        pos += 4;
-                                        node.endIndex = pos;
-                                    } else if (charBuffer.length >= pos + 5 && (charBuffer[pos] == Char_f || charBuffer[pos] == Char_F) && charBuffer[pos + 1] == Char_a && charBuffer[pos + 2] == Char_l && charBuffer[pos + 3] == Char_s && charBuffer[pos + 4] == Char_e) {
-                                        node = JSONNode.createBooleanNode(pos, false);
-                                        stackTop.addChild(node);
-                                        pos += 5;
-                                        node.endIndex = pos;
-                                    } else if (charBuffer.length >= pos + 4 && (charBuffer[pos] == Char_t || charBuffer[pos] == Char_T) && charBuffer[pos + 1] == Char_r && charBuffer[pos + 2] == Char_u && charBuffer[pos + 3] == Char_e) {
-                                        node = JSONNode.createBooleanNode(pos, true);
-                                        stackTop.addChild(node);
-                                        pos += 4;
-                                        node.endIndex = pos;
-                                    } else {
-                                        node = JSONNode.createStringValueNode(pos);
-                                        stackTop.addChild(node);
-                                        skipUnquotedStringValue();
-                                        node.type = JSONType.String;
-                                        node.endIndex = pos;
-                                    }
-                                    state = ParserState.ArrayReadComma;
-                                    firstValue = false;
-                                    --pos;
-                                    break;
-                                } else {
-                                    throw new JSONException("Unexpected character sequesnce", pos);
-                                }
-                            }
-                        }
+                    push(newStackNode(JSONType.JSONObject, pos));
+
+                    state = ParserState.ObjectReadKey;
+                    firstValue = true;
+                    break;
+                }
+                case OPEN_ARRAY: {
+                    if (deferred) {
+                        deferContainer(JSONType.JSONArray);
+                        valueRead();
                         break;
                     }
-                    default: {
-                        throw new JSONException("Unknown state", pos);
+                    push(newStackNode(JSONType.JSONArray, pos));
+
+                    state = ParserState.ArrayReadValue;
+                    firstValue = true;
+                    break;
+                }
+                case VALUE_SINGLE_QUOTED: {
+                    readString(true);
+                    drop();
+                    state = ParserState.ObjectReadComma;
+                    firstValue = false;
+                    break;
+                }
+                case VALUE_DOUBLE_QUOTED: {
+                    readString(false);
+                    drop();
+                    state = ParserState.ObjectReadComma;
+                    firstValue = false;
+                    break;
+                }
+                case VALUE_NUMBER: {
+                    readNumber(c);
+                    --pos;
+                    if (stackTop.type == JSONType.Field || stackTop.type == JSONType.EField)
+                        drop();
+
+                    state = ParserState.ObjectReadComma;
+                    firstValue = false;
+                    break;
+                }
+                case VALUE_LITERAL: {
+                    readLiteral();
+                    if (stackTop.type == JSONType.Field || stackTop.type == JSONType.EField)
+                        drop();
+
+                    state = ParserState.ObjectReadComma;
+                    firstValue = false;
+                    --pos;
+                    break;
+                }
+                case OBJECT_COMMA: {
+                    state = ParserState.ObjectReadKey;
+                    break;
+                }
+                case CLOSE_EMPTY_OBJECT:
+                case CLOSE_OBJECT: {
+                    node = pop();
+                    if (node == null || node.type != JSONType.JSONObject || (action == CLOSE_EMPTY_OBJECT && !firstValue))
+                        throw new JSONException("Unexpected end of object character", pos);
+
+                    containerRead(node);
+                    break;
+                }
+                case ELEMENT_SINGLE_QUOTED: {
+                    readString(true);
+                    state = ParserState.ArrayReadComma;
+                    firstValue = false;
+                    break;
+                }
+                case ELEMENT_DOUBLE_QUOTED: {
+                    readString(false);
+                    state = ParserState.ArrayReadComma;
+                    firstValue = false;
+                    break;
+                }
+                case ELEMENT_NUMBER: {
+                    readNumber(c);
+                    --pos;
+
+                    state = ParserState.ArrayReadComma;
+                    firstValue = false;
+                    break;
+                }
+                case ELEMENT_LITERAL: {
+                    readLiteral();
+                    state = ParserState.ArrayReadComma;
+                    firstValue = false;
+                    --pos;
+                    break;
+                }
+                case VALUE_KEYWORD: {
+                    readKeyword(c);
+                    drop();
+                    state = ParserState.ObjectReadComma;
+                    firstValue = false;
+                    --pos;
+                    break;
+                }
+                case ELEMENT_KEYWORD: {
+                    readKeyword(c);
+                    state = ParserState.ArrayReadComma;
+                    firstValue = false;
+                    --pos;
+                    break;
+                }
+                case SKIP_ELEMENT: {
+                    skipValue();
+                    state = ParserState.ArrayReadComma;
+                    firstValue = false;
+                    break;
+                }
+                case ARRAY_COMMA: {
+                    state = ParserState.ArrayReadValue;
+                    break;
+                }
+                case CLOSE_EMPTY_ARRAY:
+                case CLOSE_ARRAY: {
+                    node = pop();
+                    if (node == null || (action == CLOSE_EMPTY_ARRAY && !firstValue)) {
+                        throw new JSONException("Unexpected end of array character", pos);
+                    } else if (node.type != JSONType.JSONArray) {
+                        if (node.endIndex == -1)
+                            node.endIndex = pos;
+                        closeEntry(node, stackSize);
+
+                        node = pop();
+                        if (node == null || node.type != JSONType.JSONArray)
+                            throw new JSONException("Unexpected end of array", pos);
                     }
+                    containerRead(node);
+                    break;
+                }
+                default: {
+                    throw new JSONException("Unexpected character sequence", pos);
                 }
             }
-            if (stackSize != 0)
-                throw new JSONException("Unexpected end of JSONObject");
+        }
+    }
 
-            setBuffer(root);
-        } catch (JSONException e) {
-            throw e;
-        } catch (ArrayIndexOutOfBoundsException e) {
-            throw new JSONException("Unexpected end of input", pos);
-        } catch (Exception e) {
-            throw new JSONException(e);
+    private void readString(boolean singleQuoted) {
+        JSONNode node = newLeaf(JSONType.String, pos + 1);
+        if (singleQuoted ? skipSingleQuotedString() : skipString()) {
+            //Escaped string detected
+            node.type = JSONType.EString;
         }
+        node.endIndex = pos;
+        addLeaf(node);
     }
 
-    private void skipWhiteSpace() {
-        char c = charBuffer[pos];
-        while (c == Char_SPACE
-                || c == Char_NL
-                || c == Char_TAB
-                || c == Char_CR) {
-            c = charBuffer[++pos];
+    private void readNumber(char c) {
+        if (decodeNumbers && c != Char_PLUS) {
+            readDecodedNumber(c);
+            return;
+        }
+        JSONNode node = newLeaf(JSONType.Integer, pos);
+        if (skipNumber(c)) { //Float detected
+            node.type = JSONType.Float;
+        }
+        node.endIndex = pos;
+        addLeaf(node);
+    }
+
+    // Largest mantissa that still takes another digit without overflow
+    private static final long MANTISSA_LIMIT = (Long.MAX_VALUE - 9) / 10;
+
+    // Same grammar and errors as skipNumber(), but the digits are accumulated on the way.
+    // Integers that fit a long are stored as is, floats when JSONNumberParser can round
+    // them from the digits kept. Other numbers are decoded from the text when read.
+    private void readDecodedNumber(char c) throws JSONException {
+        JSONOptionNode node = (JSONOptionNode) newLeaf(JSONType.Integer, pos);
+        boolean negative = c == Char_MINUS;
+        if (negative) {
+            c = source.charAt(++pos);
+            if (c < Char_0 || c > Char_9) {
+                throw new JSONException("Digit expected", pos);
+            }
+        }
+        long mantissa = c - Char_0;
+        int scale = 0;
+        boolean exact = true;
+        boolean floatChar = false;
+        ++pos;
+        if (c == Char_0) {
+            c = source.charAt(pos);
+            if (c >= Char_0 && c <= Char_9) {
+                throw new JSONException("Number may not start with leading zero", pos);
+            }
+        } else {
+            int i = pos;
+            while ((c = source.charAt(i)) >= Char_0 && c <= Char_9) {
+                if (mantissa <= MANTISSA_LIMIT) {
+                    mantissa = mantissa * 10 + (c - Char_0);
+                } else {
+                    scale++;
+                    exact &= c == Char_0;
+                }
+                i++;
+            }
+            pos = i;
+        }
+        if (c == Char_DOT) {
+            floatChar = true;
+            c = source.charAt(++pos);
+            if (c < Char_0 || c > Char_9) {
+                throw new JSONException("Digit expected", pos);
+            }
+            int i = pos;
+            while ((c = source.charAt(i)) >= Char_0 && c <= Char_9) {
+                if (mantissa <= MANTISSA_LIMIT) {
+                    mantissa = mantissa * 10 + (c - Char_0);
+                    scale--;
+                } else {
+                    exact &= c == Char_0;
+                }
+                i++;
+            }
+            pos = i;
+        }
+        if (c == Char_e || c == Char_E) {
+            floatChar = true;
+            c = source.charAt(++pos);
+            boolean negativeExponent = false;
+            if (c == Char_MINUS || c == Char_PLUS) {
+                negativeExponent = c == Char_MINUS;
+                c = source.charAt(++pos);
+                if (c < Char_0 || c > Char_9)
+                    throw new JSONException("Digit expected", pos);
+            } else {
+                if (c < Char_0 || c > Char_9)
+                    throw new JSONException("Exponential part expected", pos);
+            }
+            int exponent = 0;
+            int i = pos;
+            while ((c = source.charAt(i)) >= Char_0 && c <= Char_9) {
+                if (exponent < 100000) {
+                    exponent = exponent * 10 + (c - Char_0);
+                }
+                i++;
+            }
+            pos = i;
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        node.endIndex = pos;
+        if (floatChar) {
+            node.type = JSONType.Float;
+            double value = exact ? JSONNumberParser.toDouble(negative, mantissa, scale) : JSONNumberParser.FALLBACK;
+            if (!Double.isNaN(value)) {
+                node.setNumberBits(Double.doubleToRawLongBits(value));
+            }
+        } else if (exact && scale == 0 && !(negative && mantissa == 0)) {
+            node.setNumberBits(negative ? -mantissa : mantissa);
+        }
+        addLeaf(node);
+    }
+
+    private void readLiteral() {
+        int start = pos;
+        JSONNode node = newLeaf(skipLiteral(), start);
+        node.endIndex = pos;
+        addLeaf(node);
+    }
+
+    // Moves past null, true, false (first letter in any case) or an unquoted string
+    private JSONType skipLiteral() {
+        if (length >= pos + 4 && (source.charAt(pos) == Char_n || source.charAt(pos) == Char_N) && source.charAt(pos + 1) == Char_u && source.charAt(pos + 2) == Char_l && source.charAt(pos + 3) == Char_l) {
+            pos += 4;
+            return JSONType.Null;
+        } else if (length >= pos + 5 && (source.charAt(pos) == Char_f || source.charAt(pos) == Char_F) && source.charAt(pos + 1) == Char_a && source.charAt(pos + 2) == Char_l && source.charAt(pos + 3) == Char_s && source.charAt(pos + 4) == Char_e) {
+            pos += 5;
+            return JSONType.BooleanFalse;
+        } else if (length >= pos + 4 && (source.charAt(pos) == Char_t || source.charAt(pos) == Char_T) && source.charAt(pos + 1) == Char_r && source.charAt(pos + 2) == Char_u && source.charAt(pos + 3) == Char_e) {
+            pos += 4;
+            return JSONType.BooleanTrue;
+        }
+        skipUnquotedStringValue();
+        return JSONType.String;
+    }
+
+    private void readKeyword(char c) throws JSONException {
+        int start = pos;
+        JSONNode node = newLeaf(skipKeyword(c), start);
+        node.endIndex = pos;
+        addLeaf(node);
+    }
+
+    // Moves past null, true or false spelled exactly as RFC 8259 does. Compares a character
+    // at a time, so a keyword split between two reads of a stream or fed fragments is
+    // read again once the rest is there.
+    private JSONType skipKeyword(char c) throws JSONException {
+        String keyword;
+        JSONType type;
+        if (c == Char_n) {
+            keyword = "null";
+            type = JSONType.Null;
+        } else if (c == Char_t) {
+            keyword = "true";
+            type = JSONType.BooleanTrue;
+        } else if (c == Char_f) {
+            keyword = "false";
+            type = JSONType.BooleanFalse;
+        } else {
+            throw new JSONException("Unexpected character sequence", pos);
+        }
+        for (int i = 1; i < keyword.length(); i++) {
+            if (source.charAt(pos + i) != keyword.charAt(i))
+                throw new JSONException("Unexpected character sequence", pos);
+        }
+        pos += keyword.length();
+        return type;
+    }
+
+    // A deferred container was skipped in place of a value
+    private void valueRead() {
+        if (state == ParserState.ObjectReadValue) {
+            drop();
+            state = ParserState.ObjectReadComma;
+        } else {
+            state = ParserState.ArrayReadComma;
+        }
+        firstValue = false;
+    }
+
+    private void containerRead(JSONNode node) {
+        node.endIndex = pos + 1;
+        closeEntry(node, stackSize);
+        if (stackTop != null && (stackTop.type == JSONType.Field || stackTop.type == JSONType.EField))
+            drop();
+
+        switch(stackTop.type) {
+            case JSONArray: {
+                state = ParserState.ArrayReadComma;
+                break;
+            }
+            case JSONObject : {
+                state = ParserState.ObjectReadComma;
+                break;
+            }
+            default: {
+                throw new JSONException("Unexpected Node Type.", pos);
+            }
+        }
+        firstValue = false;
+    }
+
+    // Only matches the brackets of a nested container: its children are built when it
+    // is first read, see expand(). Syntax errors inside show up at that point.
+    private void deferContainer(JSONType type) throws JSONException {
+        JSONNode node = newNode(type, pos);
+        stackTop.addChild(node);
+        skipContainer();
+        node.endIndex = pos + 1;
+        ((JSONOptionNode) node).deferred = true;
+    }
+
+    // Moves to the bracket that closes the container opened at pos.
+    private void skipContainer() throws JSONException {
+        int depth = 0;
+        while (true) {
+            switch (source.charAt(pos)) {
+                case Char_CURLY_OPEN:
+                case Char_SQUARE_OPEN:
+                    depth++;
+                    break;
+                case Char_CURLY_CLOSE:
+                case Char_SQUARE_CLOSE:
+                    if (--depth == 0) {
+                        return;
+                    }
+                    break;
+                case Char_Double_QUOTE:
+                    skipString();
+                    break;
+                case Char_Single_QUOTE:
+                    skipSingleQuotedString();
+                    break;
+                default:
+                    break;
+            }
+            ++pos;
+        }
+    }
+
+    // Moves to the last character of the value that starts at pos.
+    private void skipValue() throws JSONException {
+        char c = source.charAt(pos);
+        if (strict) {
+            validateValue(c);
+            return;
+        }
+        switch (c) {
+            case Char_CURLY_OPEN:
+            case Char_SQUARE_OPEN:
+                skipContainer();
+                break;
+            case Char_Double_QUOTE:
+                skipString();
+                break;
+            case Char_Single_QUOTE:
+                skipSingleQuotedString();
+                break;
+            case '+':
+            case '-':
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                skipNumber(c);
+                --pos;
+                break;
+            default:
+                if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '.' || c == '_') {
+                    skipUnquotedStringValue();
+                    --pos;
+                    break;
+                }
+                throw new JSONException("Unexpected character sequence", pos);
+        }
+    }
+
+    // Skips a value with the checks of validate(), so values left out by a projection
+    // are held to the same syntax as the ones that are read. The caller sets the state
+    // for the next token.
+    private void validateValue(char c) throws JSONException {
+        switch (actions[ParserState.ArrayReadValue.ordinal() * CLASS_COUNT + (c < CHAR_CLASSES.length ? CHAR_CLASSES[c] : CLASS_OTHER)]) {
+            case OPEN_OBJECT:
+            case OPEN_ARRAY: {
+                if (containers == null)
+                    containers = new long[1];
+                depth = 0;
+                open(c == Char_SQUARE_OPEN);
+                ++pos;
+                int error = validateValues();
+                if (error >= 0)
+                    throw new JSONException("Unexpected character sequence", error);
+                if (depth != 0)
+                    throw new JSONException("Unexpected end of input", pos);
+                --pos;
+                break;
+            }
+            case ELEMENT_DOUBLE_QUOTED:
+                skipString();
+                break;
+            case ELEMENT_NUMBER:
+                skipNumber(c);
+                --pos;
+                break;
+            case ELEMENT_KEYWORD:
+                skipKeyword(c);
+                --pos;
+                break;
+            default:
+                throw new JSONException("Unexpected character sequence", pos);
         }
     }
 
+    // Looks the key at pos up in the projection of the current object. A key that is not
+    // selected is skipped together with its value, without creating any node.
+    private boolean selectField() throws JSONException {
+        JSONPaths.Node projection = projections[stackSize - 1];
+        if (projection.isAll()) {
+            selectedField = projection;
+            return true;
+        }
+        int keyPos = pos;
+        int start;
+        boolean escaped;
+        switch (source.charAt(pos)) {
+            case Char_Double_QUOTE:
+                start = pos + 1;
+                escaped = skipString();
+                break;
+            case Char_Single_QUOTE:
+                start = pos + 1;
+                escaped = skipSingleQuotedString();
+                break;
+            default:
+                start = pos;
+                escaped = false;
+                skipUnquotedStringValue();
+                break;
+        }
+        JSONPaths.Node field;
+        if (escaped) {
+            JSONNode key = new JSONNode(JSONType.EField, start, source);
+            key.endIndex = pos;
+            field = projection.field(key.getStringValue());
+        } else {
+            field = projection.field(source, start, pos);
+        }
+        if (field != null) {
+            selectedField = field;
+            pos = keyPos;
+            return true;
+        }
+        if (start == keyPos) {
+            --pos;
+        }
+        ++pos;
+        skipWhiteSpace();
+        if (source.charAt(pos) != Char_COLON) {
+            throw new JSONException("Unexpected character sequence", pos);
+        }
+        ++pos;
+        skipWhiteSpace();
+        skipValue();
+        state = ParserState.ObjectReadComma;
+        firstValue = false;
+        return false;
+    }
+
+    private JSONPaths.Node project(JSONNode node) {
+        if (node.type == JSONType.Field || node.type == JSONType.EField) {
+            return selectedField;
+        }
+        JSONPaths.Node parent = projections[stackSize - 1];
+        return stackTop.type == JSONType.JSONArray ? parent.elements() : parent;
+    }
+
+    private void skipWhiteSpace() {
+        pos = source.skipWhiteSpace(pos);
+    }
+
     private void trySkipWhiteSpace() {
         ++pos;
         skipWhiteSpace();
@@ -621,11 +1409,15 @@ final class JSONParser {
 
     private boolean skipString() throws JSONException {
         boolean escaped = false;
-        char c = charBuffer[++pos];
+        int run = pos + 1;
+        pos = source.skipToQuote(run, Char_Double_QUOTE);
+        if (strict)
+            checkControlCharacters(run, pos);
+        char c = source.charAt(pos);
         while (c != Char_Double_QUOTE) {
             if (c == Char_BACKSLASH) {
                 ++pos;
-                c = charBuffer[pos];
+                c = source.charAt(pos);
                 if (!(c == Char_Double_QUOTE
                         || c == Char_BACKSLASH
                         || c == Char_SLASH
@@ -637,29 +1429,51 @@ final class JSONParser {
                         || c == Char_u)) {
                     throw new JSONException("Invalid escape code", pos);
                 }
+                if (c == Char_u && strict)
+                    checkUnicodeEscape();
                 escaped = true;
             }
-            ++pos;
-            c = charBuffer[pos];
+            run = pos + 1;
+            pos = source.skipToQuote(run, Char_Double_QUOTE);
+            if (strict)
+                checkControlCharacters(run, pos);
+            c = source.charAt(pos);
         }
         return escaped;
     }
 
+    // RFC 8259 requires characters below 0x20 to be escaped
+    private void checkControlCharacters(int from, int to) throws JSONException {
+        for (int i = from; i < to; i++) {
+            if (source.charAt(i) < Char_SPACE)
+                throw new JSONException("Unescaped control character in string", i);
+        }
+    }
+
+    // Moves to the last of the four hex digits that follow the u at pos
+    private void checkUnicodeEscape() throws JSONException {
+        for (int i = 0; i < 4; i++) {
+            if (JSONNode.hex(source.charAt(++pos)) < 0)
+                throw new JSONException("Invalid unicode escape", pos);
+        }
+    }
+
     //VERY SLOW METHOD - Exceptional case to support old Pro Application
     private void skipUnquotedStringValue() throws JSONException {
-        char c = charBuffer[++pos];
+        char c = source.charAt(++pos);
         while ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '_') {
-            c = charBuffer[++pos];
+            c = source.charAt(++pos);
         }
     }
 
     private boolean skipSingleQuotedString() throws JSONException {
         boolean escaped = false;
-        char c = charBuffer[++pos];
+        pos = source.skipToQuote(pos + 1, Char_Single_QUOTE);
+        char c = source.charAt(pos);
         while (c != Char_Single_QUOTE) {
             if (c == Char_BACKSLASH) {
                 ++pos;
-                c = charBuffer[pos];
+                c = source.charAt(pos);
                 if (!(c == Char_Double_QUOTE
                         || c == Char_BACKSLASH
                         || c == Char_SLASH
@@ -673,8 +1487,8 @@ final class JSONParser {
                 }
                 escaped = true;
             }
-            ++pos;
-            c = charBuffer[pos];
+            pos = source.skipToQuote(pos + 1, Char_Single_QUOTE);
+            c = source.charAt(pos);
         }
         return escaped;
     }
@@ -682,63 +1496,44 @@ final class JSONParser {
     private boolean skipNumber(char c) throws JSONException {
         boolean floatChar = false;
         if (c == Char_MINUS) {
-            c = charBuffer[++pos];
+            c = source.charAt(++pos);
             if (c < Char_0 || c > Char_9) {
                 throw new JSONException("Digit expected", pos);
             }
         }
         ++pos;
         if (c == Char_0) {
-            c = charBuffer[pos];
+            c = source.charAt(pos);
             if (c >= Char_0 && c <= Char_9) {
                 throw new JSONException("Number may not start with leading zero", pos);
             }
         } else {
-            c = charBuffer[pos];
-        }
-        while (!(c < Char_0 || c > Char_9)) {
-            c = charBuffer[++pos];
+            pos = source.skipDigits(pos);
+            c = source.charAt(pos);
         }
         if (c == Char_DOT) {
             floatChar = true;
-            c = charBuffer[++pos];
+            c = source.charAt(++pos);
             if (c < Char_0 || c > Char_9) {
                 throw new JSONException("Digit expected", pos);
             }
-            c = charBuffer[++pos];
-            while (!(c < Char_0 || c > Char_9)) {
-                c = charBuffer[++pos];
-            }
+            pos = source.skipDigits(pos + 1);
+            c = source.charAt(pos);
         }
         if (c == Char_e || c == Char_E) {
             floatChar = true;
-            c = charBuffer[++pos];
+            c = source.charAt(++pos);
             if (c == Char_MINUS || c == Char_PLUS) {
-                c = charBuffer[++pos];
+                c = source.charAt(++pos);
                 if (c < Char_0 || c > Char_9)
                     throw new JSONException("Digit expected", pos);
             } else {
                 if (c < Char_0 || c > Char_9)
                     throw new JSONException("Exponential part expected", pos);
             }
-            c = charBuffer[++pos];
-            while (!(c < Char_0 || c > Char_9)) {
-                c = charBuffer[++pos];
-            }
+            pos = source.skipDigits(pos + 1);
+            c = source.charAt(pos);
         }
         return floatChar;
     }
-
-    private void setBuffer(JSONNode node) {
-        node.charBuffer = charBuffer;
-        JSONNode pointer = node.child;
-        while (pointer != null) {
-            if (pointer.child != null) {
-                setBuffer(pointer);
-            } else {
-                pointer.charBuffer = charBuffer;
-            }
-            pointer = pointer.next;
-        }
-    }
 }
@@ -0,0 +1,144 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import java.util.Arrays;
+
+// A compiled set of paths for projection parsing. A path is a list of field names
+// separated by dots, where [*] stands for all elements of an array:
+//
+//   id, meta.ts, items[*].price, [*].name
+//
+// Everything below the last segment of a path is kept.
+public final class JSONPaths {
+
+    final Node root;
+
+    private JSONPaths(Node root) {
+        this.root = root;
+    }
+
+    public static JSONPaths compile(String... paths) throws JSONException {
+        Node root = new Node();
+        for (String path : paths) {
+            root.add(path, 0);
+        }
+        return new JSONPaths(root);
+    }
+
+    static final class Node {
+
+        static final Node ALL = new Node();
+
+        static {
+            ALL.all = true;
+        }
+
+        private boolean all;
+        private String[] names = new String[0];
+        private Node[] children = new Node[0];
+        private Node elements;
+
+        boolean isAll() {
+            return all;
+        }
+
+        // Projection of the elements of an array, null if they are not selected.
+        Node elements() {
+            return all ? ALL : elements;
+        }
+
+        // Projection of a field, null if it is not selected.
+        Node field(JSONSource source, int start, int end) {
+            if (all) {
+                return ALL;
+            }
+            for (int i = 0; i < names.length; i++) {
+                if (source.contentEquals(start, end, names[i])) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node field(String key) {
+            if (all) {
+                return ALL;
+            }
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(key)) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private void add(String path, int index) throws JSONException {
+            if (all) {
+                return;
+            }
+            if (index == path.length()) {
+                all = true;
+                names = new String[0];
+                children = new Node[0];
+                elements = null;
+                return;
+            }
+            if (path.startsWith("[*]", index)) {
+                if (elements == null) {
+                    elements = new Node();
+                }
+                elements.add(path, next(path, index + 3));
+                return;
+            }
+            int end = index;
+            while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                end++;
+            }
+            if (end == index) {
+                throw new JSONException("Invalid path '" + path + "'", index);
+            }
+            String name = path.substring(index, end);
+            Node child = field(name);
+            if (child == null) {
+                child = new Node();
+                names = Arrays.copyOf(names, names.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                names[names.length - 1] = name;
+                children[children.length - 1] = child;
+            }
+            child.add(path, next(path, end));
+        }
+
+        private static int next(String path, int index) throws JSONException {
+            if (index == path.length() || path.charAt(index) == '[') {
+                return index;
+            }
+            if (path.charAt(index) != '.' || index + 1 == path.length()) {
+                throw new JSONException("Invalid path '" + path + "'", index);
+            }
+            return index + 1;
+        }
+    }
+}
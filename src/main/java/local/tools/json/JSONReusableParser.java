@@ -0,0 +1,116 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import java.nio.ByteBuffer;
+
+// Parses one document after the other with the same parser, stack and node arena.
+// Once a document is released its nodes (and the returned JSONObject/JSONArray) are
+// recycled by the next parse, so a request/response loop runs without allocating
+// per token. A document that is not released stays valid: the next parse then starts
+// a new arena instead. Instances must not be shared between threads.
+public final class JSONReusableParser {
+
+    private JSONParser parser = null;
+    private char[] chars = new char[0];
+    private JSONObject object = null;
+    private JSONArray array = null;
+    private boolean released = true;
+    private final JSONParseOptions options;
+
+    public JSONReusableParser() {
+        this(new JSONParseOptions());
+    }
+
+    public JSONReusableParser(JSONParseOptions options) {
+        this.options = options;
+    }
+
+    public JSONElement parse(String source) throws JSONException {
+        int length = source.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        if (!released) {
+            // The previous document may still read the old buffer
+            chars = new char[chars.length];
+        }
+        source.getChars(0, length, chars, 0);
+        return parse(new JSONSource.Chars(chars, 0, length));
+    }
+
+    public JSONElement parse(char[] buffer, int offset, int length) throws JSONException {
+        return parse(new JSONSource.Chars(buffer, offset, length));
+    }
+
+    public JSONElement parse(byte[] utf8) throws JSONException {
+        return parse(utf8, 0, utf8.length);
+    }
+
+    public JSONElement parse(byte[] utf8, int offset, int length) throws JSONException {
+        return parse(new JSONSource.Utf8(utf8, offset, length));
+    }
+
+    public JSONElement parse(ByteBuffer utf8) throws JSONException {
+        return parse(new JSONSource.Utf8Buffer(utf8));
+    }
+
+    // The last parsed document and everything read from it must no longer be used.
+    public void release() {
+        released = true;
+    }
+
+    private JSONElement parse(JSONSource source) throws JSONException {
+        if (parser == null) {
+            parser = new JSONParser(source);
+            parser.setOptions(options);
+            parser.enableArena();
+        } else {
+            if (!released) {
+                parser.detachArena();
+                object = null;
+                array = null;
+            }
+            parser.reset(source);
+        }
+        released = true;
+        parser.parse();
+        released = false;
+        JSONNode root = parser.getRoot();
+        if (root.type == JSONType.JSONObject) {
+            if (object == null) {
+                object = new JSONObject(root);
+            } else {
+                object.reset(root);
+            }
+            return object;
+        }
+        if (array == null) {
+            array = new JSONArray(root);
+        } else {
+            array.reset(root);
+        }
+        return array;
+    }
+}
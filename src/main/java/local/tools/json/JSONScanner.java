@@ -0,0 +1,128 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+// The scanning loops of the parser over array backed input. Every method returns the
+// index of the first element in [from, to) that ends the run, or to if there is none.
+//
+// This is the scalar implementation. On Java 17 and later the multi-release jar also
+// contains JSONVectorScanner, which is used when the jdk.incubator.vector module is
+// available (--add-modules jdk.incubator.vector).
+class JSONScanner {
+
+    static final JSONScanner INSTANCE = load();
+
+    private static JSONScanner load() {
+        try {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+                JSONScanner scanner = (JSONScanner) Class.forName("local.tools.json.JSONVectorScanner")
+                        .getDeclaredConstructor().newInstance();
+                if (scanner.agreesWith(new JSONScanner())) {
+                    return scanner;
+                }
+            }
+        } catch (ReflectiveOperationException | LinkageError ignored) {
+            // No vector implementation for this runtime
+        }
+        return new JSONScanner();
+    }
+
+    // Guards against incubator API differences between Java versions, which only show
+    // up as linkage errors on first use.
+    private boolean agreesWith(JSONScanner scalar) {
+        String sample = " \t\r\n 12345678901234567890123456789012345678901234567890123456789012345678901234567890 "
+                + "\"abcdefghijklmnopqrstuvwxyzabcdefghijklmnopqrstuvwxyzabcdefghijklmnopqrstuvwxyz\\\"\"";
+        char[] chars = sample.toCharArray();
+        byte[] bytes = new byte[chars.length];
+        for (int i = 0; i < chars.length; i++) {
+            bytes[i] = (byte) chars[i];
+        }
+        for (int from = 0; from < chars.length; from++) {
+            if (skipWhiteSpace(chars, from, chars.length) != scalar.skipWhiteSpace(chars, from, chars.length)
+                    || skipWhiteSpace(bytes, from, bytes.length) != scalar.skipWhiteSpace(bytes, from, bytes.length)
+                    || skipDigits(chars, from, chars.length) != scalar.skipDigits(chars, from, chars.length)
+                    || skipDigits(bytes, from, bytes.length) != scalar.skipDigits(bytes, from, bytes.length)
+                    || skipToQuote(chars, from, chars.length, '"') != scalar.skipToQuote(chars, from, chars.length, '"')
+                    || skipToQuote(bytes, from, bytes.length, '"') != scalar.skipToQuote(bytes, from, bytes.length, '"')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean isWhiteSpace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    int skipWhiteSpace(char[] buffer, int from, int to) {
+        while (from < to && isWhiteSpace(buffer[from])) {
+            from++;
+        }
+        return from;
+    }
+
+    int skipWhiteSpace(byte[] buffer, int from, int to) {
+        while (from < to && isWhiteSpace(buffer[from])) {
+            from++;
+        }
+        return from;
+    }
+
+    int skipDigits(char[] buffer, int from, int to) {
+        while (from < to && buffer[from] >= '0' && buffer[from] <= '9') {
+            from++;
+        }
+        return from;
+    }
+
+    int skipDigits(byte[] buffer, int from, int to) {
+        while (from < to && buffer[from] >= '0' && buffer[from] <= '9') {
+            from++;
+        }
+        return from;
+    }
+
+    // Finds the closing quote or the next backslash of a string.
+    int skipToQuote(char[] buffer, int from, int to, char quote) {
+        while (from < to) {
+            char c = buffer[from];
+            if (c == quote || c == '\\') {
+                return from;
+            }
+            from++;
+        }
+        return from;
+    }
+
+    int skipToQuote(byte[] buffer, int from, int to, char quote) {
+        while (from < to) {
+            byte b = buffer[from];
+            if (b == quote || b == '\\') {
+                return from;
+            }
+            from++;
+        }
+        return from;
+    }
+}
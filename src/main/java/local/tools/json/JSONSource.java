@@ -0,0 +1,946 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+abstract class JSONSource {
+
+    static final int CHUNK_SHIFT = 15;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    static final Incomplete INCOMPLETE = new Incomplete();
+
+    protected int offset;
+    protected int limit;
+
+    // Set when the document read from this source caches decoded values
+    JSONValueCache values;
+
+    // Set when the document read from this source is deferred, its nested containers are
+    // parsed with these options when they are read
+    JSONParseOptions options;
+
+    // The table the ids of the field names read from this source belong to
+    JSONSymbolTable symbols;
+
+    // Set when the string values read from this source are shared through a cache
+    JSONStringCache strings;
+
+    // Set on a window of a larger input: running past the limit means the next window is
+    // needed, not that the input ended
+    boolean partial;
+
+    // Thrown when a push source runs out of buffered input before the end of input has
+    // been signalled. It is shared and carries no stack trace, as it is thrown per feed.
+    static final class Incomplete extends RuntimeException {
+
+        private Incomplete() {
+            super("Incomplete input", null, false, false);
+        }
+    }
+
+    protected JSONSource(int offset, int limit) {
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + arrayLength);
+        }
+    }
+
+    abstract char charAt(int index);
+
+    // Returns a source over [start, end) of the same storage, e.g. one record of a larger buffer.
+    abstract JSONSource slice(int start, int end);
+
+    void reset(int start, int end) {
+        offset = start;
+        limit = end;
+    }
+
+    int indexOf(char c, int from) {
+        return indexOf(c, from, limit);
+    }
+
+    // Index of c in [from, to), or to when there is none
+    int indexOf(char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (charAt(i) == c) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    // The scanning loops of the parser. Like charAt they throw when the input ends
+    // before the run does.
+    int skipWhiteSpace(int from) {
+        while (JSONScanner.isWhiteSpace(charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    int skipDigits(int from) {
+        char c = charAt(from);
+        while (c >= '0' && c <= '9') {
+            c = charAt(++from);
+        }
+        return from;
+    }
+
+    // Index of the closing quote or of the next backslash in a string.
+    int skipToQuote(int from, char quote) {
+        char c = charAt(from);
+        while (c != quote && c != '\\') {
+            c = charAt(++from);
+        }
+        return from;
+    }
+
+    protected final int checkEnd(int index) {
+        if (index >= limit) {
+            throw pastEnd(index);
+        }
+        return index;
+    }
+
+    // Whether the input ends before index. Sources that read ahead fill up to index first.
+    boolean isEnd(int index) {
+        if (index < limit) {
+            return false;
+        }
+        if (partial) {
+            throw INCOMPLETE;
+        }
+        return true;
+    }
+
+    protected final RuntimeException pastEnd(int index) {
+        return partial ? INCOMPLETE : new ArrayIndexOutOfBoundsException(index);
+    }
+
+    // UTF-8 sources expose their bytes to the structural index, others return null.
+    ByteBuffer asByteBuffer() {
+        return null;
+    }
+
+    abstract String substring(int start, int end);
+
+    abstract void appendTo(StringBuilder builder, int start, int end);
+
+    // Copies the characters of [start, end) to dest from position on and returns the
+    // position after the last one. UTF-8 sources write at most end - start characters.
+    int getChars(int start, int end, char[] dest, int position) {
+        for (int i = start; i < end; i++) {
+            dest[position++] = charAt(i);
+        }
+        return position;
+    }
+
+    abstract boolean contentEquals(int start, int end, CharSequence value);
+
+    // Whether charAt returns the bytes of UTF-8 input rather than characters
+    boolean isUtf8() {
+        return false;
+    }
+
+    // Decodes the UTF-8 sequence at index, reading the bytes through charAt: the code
+    // point in the low 21 bits and the number of bytes above them. -1 for a malformed or
+    // truncated sequence, which String decoding replaces.
+    final int decodeUtf8(int index, int end) {
+        int b = charAt(index);
+        if (b < 0x80) {
+            return 1 << 21 | b;
+        }
+        int size;
+        int code;
+        int min;
+        if (b >= 0xC2 && b <= 0xDF) {
+            size = 2;
+            code = b & 0x1F;
+            min = 0x80;
+        } else if (b >= 0xE0 && b <= 0xEF) {
+            size = 3;
+            code = b & 0x0F;
+            min = 0x800;
+        } else if (b >= 0xF0 && b <= 0xF4) {
+            size = 4;
+            code = b & 0x07;
+            min = 0x10000;
+        } else {
+            return -1;
+        }
+        if (index + size > end) {
+            return -1;
+        }
+        for (int i = 1; i < size; i++) {
+            int c = charAt(index + i);
+            if ((c & 0xC0) != 0x80) {
+                return -1;
+            }
+            code = code << 6 | (c & 0x3F);
+        }
+        if (code < min || code > Character.MAX_CODE_POINT || (code >= 0xD800 && code <= 0xDFFF)) {
+            return -1;
+        }
+        return size << 21 | code;
+    }
+
+    // Compares the UTF-8 bytes of [start, end) with value from index from on without
+    // decoding them to a String, unless they are malformed
+    final boolean utf8Equals(int start, int end, CharSequence value, int from) {
+        int length = value.length();
+        int k = from;
+        for (int i = start; i < end; ) {
+            int sequence = decodeUtf8(i, end);
+            if (sequence < 0) {
+                return substring(i, end).contentEquals(value.subSequence(k, length));
+            }
+            int code = sequence & 0x1FFFFF;
+            if (code >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                if (k + 2 > length || value.charAt(k) != Character.highSurrogate(code)
+                        || value.charAt(k + 1) != Character.lowSurrogate(code)) {
+                    return false;
+                }
+                k += 2;
+            } else {
+                if (k >= length || value.charAt(k) != code) {
+                    return false;
+                }
+                k++;
+            }
+            i += sequence >>> 21;
+        }
+        return k == length;
+    }
+
+    // Whether index i of [start, end) holds the i-th character, which for UTF-8
+    // sources is only the case while the range is ASCII
+    boolean hasCharOffsets(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Runs end on an ASCII character, so a multibyte sequence is never split
+    static int decodeTo(String decoded, char[] dest, int position) {
+        decoded.getChars(0, decoded.length(), dest, position);
+        return position + decoded.length();
+    }
+
+    // Wraps the caller's array without copying it. The array must not be modified
+    // while any element parsed from it is still in use.
+    static final class Chars extends JSONSource {
+
+        private final char[] buffer;
+
+        Chars(char[] buffer, int offset, int length) {
+            super(offset, offset + length);
+            checkRange(buffer.length, offset, length);
+            this.buffer = buffer;
+        }
+
+        @Override
+        char charAt(int index) {
+            if (index >= limit) {
+                throw new ArrayIndexOutOfBoundsException(index);
+            }
+            return buffer[index];
+        }
+
+        @Override
+        JSONSource slice(int start, int end) {
+            return new Chars(buffer, start, end - start);
+        }
+
+        @Override
+        int skipWhiteSpace(int from) {
+            return checkEnd(JSONScanner.INSTANCE.skipWhiteSpace(buffer, from, limit));
+        }
+
+        @Override
+        int skipDigits(int from) {
+            return checkEnd(JSONScanner.INSTANCE.skipDigits(buffer, from, limit));
+        }
+
+        @Override
+        int skipToQuote(int from, char quote) {
+            return checkEnd(JSONScanner.INSTANCE.skipToQuote(buffer, from, limit, quote));
+        }
+
+        @Override
+        int indexOf(char c, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (buffer[i] == c) {
+                    return i;
+                }
+            }
+            return to;
+        }
+
+        @Override
+        String substring(int start, int end) {
+            return new String(buffer, start, end - start);
+        }
+
+        @Override
+        void appendTo(StringBuilder builder, int start, int end) {
+            builder.append(buffer, start, end - start);
+        }
+
+        @Override
+        int getChars(int start, int end, char[] dest, int position) {
+            System.arraycopy(buffer, start, dest, position, end - start);
+            return position + end - start;
+        }
+
+        @Override
+        boolean hasCharOffsets(int start, int end) {
+            return true;
+        }
+
+        @Override
+        boolean contentEquals(int start, int end, CharSequence value) {
+            int length = value.length();
+            if (end - start != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (value.charAt(i) != buffer[start + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    static final class Sequence extends JSONSource {
+
+        private final CharSequence sequence;
+
+        Sequence(CharSequence sequence) {
+            this(sequence, 0, sequence.length());
+        }
+
+        Sequence(CharSequence sequence, int start, int end) {
+            super(start, end);
+            this.sequence = sequence;
+        }
+
+        @Override
+        JSONSource slice(int start, int end) {
+            return new Sequence(sequence, start, end);
+        }
+
+        @Override
+        char charAt(int index) {
+            if (index >= limit) {
+                throw new ArrayIndexOutOfBoundsException(index);
+            }
+            return sequence.charAt(index);
+        }
+
+        @Override
+        String substring(int start, int end) {
+            return sequence.subSequence(start, end).toString();
+        }
+
+        @Override
+        void appendTo(StringBuilder builder, int start, int end) {
+            builder.append(sequence, start, end);
+        }
+
+        @Override
+        int getChars(int start, int end, char[] dest, int position) {
+            if (sequence instanceof String) {
+                ((String) sequence).getChars(start, end, dest, position);
+                return position + end - start;
+            }
+            return super.getChars(start, end, dest, position);
+        }
+
+        @Override
+        boolean hasCharOffsets(int start, int end) {
+            return true;
+        }
+
+        @Override
+        boolean contentEquals(int start, int end, CharSequence value) {
+            int length = value.length();
+            if (end - start != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (value.charAt(i) != sequence.charAt(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Offsets are byte positions. Every structural JSON character is ASCII and never
+    // occurs inside a multibyte UTF-8 sequence, so the parser can scan the raw bytes.
+    static final class Utf8 extends JSONSource {
+
+        private final byte[] buffer;
+
+        Utf8(byte[] buffer, int offset, int length) {
+            super(offset, offset + length);
+            checkRange(buffer.length, offset, length);
+            this.buffer = buffer;
+        }
+
+        @Override
+        char charAt(int index) {
+            if (index >= limit) {
+                throw new ArrayIndexOutOfBoundsException(index);
+            }
+            return (char) (buffer[index] & 0xFF);
+        }
+
+        @Override
+        JSONSource slice(int start, int end) {
+            return new Utf8(buffer, start, end - start);
+        }
+
+        @Override
+        boolean isUtf8() {
+            return true;
+        }
+
+        @Override
+        ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(buffer);
+        }
+
+        @Override
+        int skipWhiteSpace(int from) {
+            return checkEnd(JSONScanner.INSTANCE.skipWhiteSpace(buffer, from, limit));
+        }
+
+        @Override
+        int skipDigits(int from) {
+            return checkEnd(JSONScanner.INSTANCE.skipDigits(buffer, from, limit));
+        }
+
+        @Override
+        int skipToQuote(int from, char quote) {
+            return checkEnd(JSONScanner.INSTANCE.skipToQuote(buffer, from, limit, quote));
+        }
+
+        @Override
+        int indexOf(char c, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (buffer[i] == c) {
+                    return i;
+                }
+            }
+            return to;
+        }
+
+        @Override
+        String substring(int start, int end) {
+            return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        void appendTo(StringBuilder builder, int start, int end) {
+            for (int i = start; i < end; i++) {
+                byte b = buffer[i];
+                if (b < 0) {
+                    builder.append(new String(buffer, i, end - i, StandardCharsets.UTF_8));
+                    return;
+                }
+                builder.append((char) b);
+            }
+        }
+
+        @Override
+        int getChars(int start, int end, char[] dest, int position) {
+            for (int i = start; i < end; i++) {
+                byte b = buffer[i];
+                if (b < 0) {
+                    return decodeTo(substring(i, end), dest, position);
+                }
+                dest[position++] = (char) b;
+            }
+            return position;
+        }
+
+        @Override
+        boolean hasCharOffsets(int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (buffer[i] < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        boolean contentEquals(int start, int end, CharSequence value) {
+            int length = value.length();
+            if (end - start < length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                byte b = buffer[start + i];
+                if (c >= 0x80 || b < 0) {
+                    return utf8Equals(start + i, end, value, i);
+                }
+                if (c != b) {
+                    return false;
+                }
+            }
+            return end - start == length;
+        }
+    }
+
+    // Reads a heap or direct (e.g. memory mapped) buffer in place using absolute offsets,
+    // so node positions refer to the buffer itself and no bytes are copied to the heap.
+    static final class Utf8Buffer extends JSONSource {
+
+        private final ByteBuffer buffer;
+
+        Utf8Buffer(ByteBuffer buffer) {
+            this(buffer, buffer.position(), buffer.limit());
+        }
+
+        Utf8Buffer(ByteBuffer buffer, int start, int end) {
+            super(start, end);
+            this.buffer = buffer;
+        }
+
+        @Override
+        JSONSource slice(int start, int end) {
+            return new Utf8Buffer(buffer, start, end);
+        }
+
+        @Override
+        boolean isUtf8() {
+            return true;
+        }
+
+        @Override
+        ByteBuffer asByteBuffer() {
+            return buffer.duplicate();
+        }
+
+        // Heap buffers are scanned through their array, direct buffers byte by byte.
+        @Override
+        int skipWhiteSpace(int from) {
+            if (!buffer.hasArray()) {
+                return super.skipWhiteSpace(from);
+            }
+            int base = buffer.arrayOffset();
+            return checkEnd(JSONScanner.INSTANCE.skipWhiteSpace(buffer.array(), base + from, base + limit) - base);
+        }
+
+        @Override
+        int skipDigits(int from) {
+            if (!buffer.hasArray()) {
+                return super.skipDigits(from);
+            }
+            int base = buffer.arrayOffset();
+            return checkEnd(JSONScanner.INSTANCE.skipDigits(buffer.array(), base + from, base + limit) - base);
+        }
+
+        @Override
+        int skipToQuote(int from, char quote) {
+            if (!buffer.hasArray()) {
+                return super.skipToQuote(from, quote);
+            }
+            int base = buffer.arrayOffset();
+            return checkEnd(JSONScanner.INSTANCE.skipToQuote(buffer.array(), base + from, base + limit, quote) - base);
+        }
+
+        @Override
+        char charAt(int index) {
+            if (index >= limit) {
+                throw pastEnd(index);
+            }
+            return (char) (buffer.get(index) & 0xFF);
+        }
+
+        @Override
+        String substring(int start, int end) {
+            byte[] bytes = new byte[end - start];
+            ByteBuffer view = buffer.duplicate();
+            view.position(start);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        void appendTo(StringBuilder builder, int start, int end) {
+            for (int i = start; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b < 0) {
+                    builder.append(substring(i, end));
+                    return;
+                }
+                builder.append((char) b);
+            }
+        }
+
+        @Override
+        int getChars(int start, int end, char[] dest, int position) {
+            for (int i = start; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b < 0) {
+                    return decodeTo(substring(i, end), dest, position);
+                }
+                dest[position++] = (char) b;
+            }
+            return position;
+        }
+
+        @Override
+        boolean contentEquals(int start, int end, CharSequence value) {
+            if (end > limit) {
+                throw pastEnd(limit);
+            }
+            int length = value.length();
+            if (end - start < length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                byte b = buffer.get(start + i);
+                if (c >= 0x80 || b < 0) {
+                    return utf8Equals(start + i, end, value, i);
+                }
+                if (c != b) {
+                    return false;
+                }
+            }
+            return end - start == length;
+        }
+    }
+
+    // Pulls characters from a reader into fixed size chunks the first time the parser
+    // reaches them, so parsing overlaps reading and the input is never copied twice.
+    // The total length is unknown up front; running past the end of the stream is
+    // reported the same way as running past the end of an array.
+    static final class ChunkedChars extends JSONSource {
+
+        private Reader reader;
+        private char[][] chunks = new char[16][];
+        private int available = 0;
+
+        ChunkedChars(Reader reader) {
+            super(0, Integer.MAX_VALUE);
+            this.reader = reader;
+        }
+
+        private ChunkedChars(char[][] chunks, int start, int end) {
+            super(start, end);
+            this.chunks = chunks;
+            this.available = end;
+        }
+
+        // The slice shares the chunks read so far and reads no further
+        @Override
+        JSONSource slice(int start, int end) {
+            if (end > available && !fill(end - 1)) {
+                throw new ArrayIndexOutOfBoundsException(end - 1);
+            }
+            return new ChunkedChars(chunks, start, end);
+        }
+
+        @Override
+        char charAt(int index) {
+            if (index >= available && !fill(index)) {
+                throw new ArrayIndexOutOfBoundsException(index);
+            }
+            return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        @Override
+        boolean isEnd(int index) {
+            return index >= available && !fill(index);
+        }
+
+        // Reads until index is available, false if the reader ends before
+        private boolean fill(int index) {
+            while (index >= available) {
+                if (reader == null) {
+                    return false;
+                }
+                int chunk = available >>> CHUNK_SHIFT;
+                if (chunk == chunks.length) {
+                    chunks = Arrays.copyOf(chunks, chunk * 2);
+                }
+                if (chunks[chunk] == null) {
+                    chunks[chunk] = new char[CHUNK_SIZE];
+                }
+                int offset = available & CHUNK_MASK;
+                int read;
+                try {
+                    read = reader.read(chunks[chunk], offset, CHUNK_SIZE - offset);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (read < 0) {
+                    reader = null;
+                } else {
+                    available += read;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        String substring(int start, int end) {
+            StringBuilder builder = new StringBuilder(end - start);
+            appendTo(builder, start, end);
+            return builder.toString();
+        }
+
+        @Override
+        void appendTo(StringBuilder builder, int start, int end) {
+            while (start < end) {
+                int offset = start & CHUNK_MASK;
+                int count = Math.min(end - start, CHUNK_SIZE - offset);
+                builder.append(chunks[start >>> CHUNK_SHIFT], offset, count);
+                start += count;
+            }
+        }
+
+        @Override
+        int getChars(int start, int end, char[] dest, int position) {
+            while (start < end) {
+                int offset = start & CHUNK_MASK;
+                int count = Math.min(end - start, CHUNK_SIZE - offset);
+                System.arraycopy(chunks[start >>> CHUNK_SHIFT], offset, dest, position, count);
+                position += count;
+                start += count;
+            }
+            return position;
+        }
+
+        @Override
+        boolean hasCharOffsets(int start, int end) {
+            return true;
+        }
+
+        @Override
+        boolean contentEquals(int start, int end, CharSequence value) {
+            int length = value.length();
+            if (end - start != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (value.charAt(i) != charAt(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Same as ChunkedChars for a UTF-8 encoded stream; offsets are byte positions.
+    // Without a stream the source is fed by append() and reports Incomplete when the
+    // parser gets ahead of the data until end() is called.
+    static final class ChunkedUtf8 extends JSONSource {
+
+        private InputStream stream;
+        private boolean ended = false;
+        private byte[][] chunks = new byte[16][];
+        private int available = 0;
+
+        ChunkedUtf8() {
+            super(0, Integer.MAX_VALUE);
+        }
+
+        ChunkedUtf8(InputStream stream) {
+            super(0, Integer.MAX_VALUE);
+            this.stream = stream;
+        }
+
+        private ChunkedUtf8(byte[][] chunks, int start, int end) {
+            super(start, end);
+            this.chunks = chunks;
+            this.available = end;
+            this.ended = true;
+        }
+
+        @Override
+        boolean isUtf8() {
+            return true;
+        }
+
+        // The slice shares the chunks read so far and reads no further
+        @Override
+        JSONSource slice(int start, int end) {
+            if (end > available && !fill(end - 1)) {
+                throw new ArrayIndexOutOfBoundsException(end - 1);
+            }
+            return new ChunkedUtf8(chunks, start, end);
+        }
+
+        @Override
+        char charAt(int index) {
+            if (index >= available && !fill(index)) {
+                throw new ArrayIndexOutOfBoundsException(index);
+            }
+            return (char) (chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK] & 0xFF);
+        }
+
+        @Override
+        boolean isEnd(int index) {
+            return index >= available && !fill(index);
+        }
+
+        // Reads until index is available, false if the input ends before. A fed source
+        // that has not been ended yet throws INCOMPLETE instead.
+        private boolean fill(int index) {
+            while (index >= available) {
+                if (ended) {
+                    return false;
+                }
+                if (stream == null) {
+                    throw INCOMPLETE;
+                }
+                int chunk = nextChunk();
+                int offset = available & CHUNK_MASK;
+                int read;
+                try {
+                    read = stream.read(chunks[chunk], offset, CHUNK_SIZE - offset);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (read < 0) {
+                    stream = null;
+                    ended = true;
+                } else {
+                    available += read;
+                }
+            }
+            return true;
+        }
+
+        private int nextChunk() {
+            int chunk = available >>> CHUNK_SHIFT;
+            if (chunk == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunk * 2);
+            }
+            if (chunks[chunk] == null) {
+                chunks[chunk] = new byte[CHUNK_SIZE];
+            }
+            return chunk;
+        }
+
+        void append(ByteBuffer buffer) {
+            while (buffer.hasRemaining()) {
+                int chunk = nextChunk();
+                int offset = available & CHUNK_MASK;
+                int count = Math.min(buffer.remaining(), CHUNK_SIZE - offset);
+                buffer.get(chunks[chunk], offset, count);
+                available += count;
+            }
+        }
+
+        void end() {
+            ended = true;
+        }
+
+        private byte byteAt(int index) {
+            return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        @Override
+        String substring(int start, int end) {
+            byte[] bytes = new byte[end - start];
+            int position = 0;
+            while (start < end) {
+                int offset = start & CHUNK_MASK;
+                int count = Math.min(end - start, CHUNK_SIZE - offset);
+                System.arraycopy(chunks[start >>> CHUNK_SHIFT], offset, bytes, position, count);
+                position += count;
+                start += count;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        void appendTo(StringBuilder builder, int start, int end) {
+            for (int i = start; i < end; i++) {
+                byte b = byteAt(i);
+                if (b < 0) {
+                    builder.append(substring(i, end));
+                    return;
+                }
+                builder.append((char) b);
+            }
+        }
+
+        @Override
+        int getChars(int start, int end, char[] dest, int position) {
+            for (int i = start; i < end; i++) {
+                byte b = byteAt(i);
+                if (b < 0) {
+                    return decodeTo(substring(i, end), dest, position);
+                }
+                dest[position++] = (char) b;
+            }
+            return position;
+        }
+
+        @Override
+        boolean contentEquals(int start, int end, CharSequence value) {
+            int length = value.length();
+            if (end - start < length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                byte b = byteAt(start + i);
+                if (c >= 0x80 || b < 0) {
+                    return utf8Equals(start + i, end, value, i);
+                }
+                if (c != b) {
+                    return false;
+                }
+            }
+            return end - start == length;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+// Shares the String instances of short string values between the nodes, and documents,
+// parsed with the same JSONParseOptions. Meant for low cardinality values (status codes,
+// countries, enum like types) repeated over many records: every occurrence then reads as
+// the same String instead of a new copy.
+//
+// The cache is direct mapped on the hash of the characters, so it never holds more than
+// size strings and a value that collides with another simply replaces it. A value is
+// looked up when it is read, comparing the input in place, so values that are
+// never read cost nothing. Only unescaped values up to maxLength characters are cached,
+// counted in chars for UTF-8 input as well. Instances are not thread safe.
+public final class JSONStringCache {
+
+    private static final int DEFAULT_SIZE = 1024;
+    private static final int DEFAULT_MAX_LENGTH = 32;
+
+    private final String[] entries;
+    private final int[] hashes;
+    private final int maxLength;
+
+    public JSONStringCache() {
+        this(DEFAULT_SIZE, DEFAULT_MAX_LENGTH);
+    }
+
+    public JSONStringCache(int size, int maxLength) {
+        if (size <= 0 || maxLength < 0) {
+            throw new IllegalArgumentException("Invalid cache size " + size + " or maximum length " + maxLength);
+        }
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size) {
+            capacity <<= 1;
+        }
+        entries = new String[capacity];
+        hashes = new int[capacity];
+        this.maxLength = maxLength;
+    }
+
+    // The cached String of the characters between start and end, null if there are more
+    // than maxLength of them. The hash is the one of String.hashCode(), so the same value
+    // finds the same entry whether it is read from chars or from UTF-8.
+    String get(JSONSource source, int start, int end) {
+        int hash = 0;
+        int length = 0;
+        if (source.isUtf8()) {
+            for (int i = start; i < end; ) {
+                int sequence = source.decodeUtf8(i, end);
+                if (sequence < 0) {
+                    return null;
+                }
+                int code = sequence & 0x1FFFFF;
+                if (code >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                    hash = 31 * (31 * hash + Character.highSurrogate(code)) + Character.lowSurrogate(code);
+                    length += 2;
+                } else {
+                    hash = 31 * hash + code;
+                    length++;
+                }
+                if (length > maxLength) {
+                    return null;
+                }
+                i += sequence >>> 21;
+            }
+        } else {
+            if (end - start > maxLength) {
+                return null;
+            }
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + source.charAt(i);
+            }
+            length = end - start;
+        }
+        int slot = (hash ^ (hash >>> 16)) & (entries.length - 1);
+        String entry = entries[slot];
+        if (entry != null && hashes[slot] == hash && entry.length() == length
+                && source.contentEquals(start, end, entry)) {
+            return entry;
+        }
+        entry = source.substring(start, end);
+        entries[slot] = entry;
+        hashes[slot] = hash;
+        return entry;
+    }
+}
@@ -0,0 +1,507 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// Two-phase parsing of a UTF-8 document.
+//
+// Stage 1 reads the input eight bytes at a time and uses SWAR arithmetic to find quotes,
+// backslashes and the structural characters {}[]:, of every 64 byte block as bitmasks.
+// Escaped quotes are removed, a prefix xor over the remaining quotes gives the string
+// regions, and the positions of all structural characters outside of strings plus all
+// string quotes are collected into one index. The blocks are scanned in one pass that
+// carries the two bits one block passes to the next (inside a string, escaped first
+// byte).
+//
+// Stage 2 builds the same JSONNode tree as JSONParser by visiting the indexed positions
+// only. It understands strict JSON; for anything else (lenient syntax or errors) build()
+// returns null and the caller falls back to the state machine.
+final class JSONStructuralIndex {
+
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int MIN_CAPACITY = 64;
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long GATHER = 0x0102040810204080L;
+
+    private static final long QUOTE = ONES * '"';
+    private static final long BACKSLASH = ONES * '\\';
+    // '[' and ']' differ from '{' and '}' only by bit 5, so setting it folds the brackets
+    // into the braces.
+    private static final long BRACKET_BIT = ONES * 0x20;
+    private static final long CURLY_OPEN = ONES * '{';
+    private static final long CURLY_CLOSE = ONES * '}';
+    private static final long COLON = ONES * ':';
+    private static final long COMMA = ONES * ',';
+
+    private final JSONSource source;
+    private final ByteBuffer bytes;
+    private final int offset;
+    private final int limit;
+    private final int blocks;
+
+    private final long[] backslashes;
+
+    private int[] positions;
+    private int count;
+
+    private JSONStructuralIndex(JSONSource source, ByteBuffer bytes) {
+        this.source = source;
+        this.bytes = bytes.order(ByteOrder.LITTLE_ENDIAN);
+        this.offset = source.offset;
+        this.limit = source.limit;
+        this.blocks = (limit - offset + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+        this.backslashes = new long[blocks];
+    }
+
+    static JSONStructuralIndex scan(JSONSource source, ByteBuffer bytes) {
+        JSONStructuralIndex index = new JSONStructuralIndex(source, bytes);
+        index.index();
+        return index;
+    }
+
+    int size() {
+        return count;
+    }
+
+    int position(int i) {
+        return positions[i];
+    }
+
+    //<editor-fold desc="Stage 1">
+    private void index() {
+        int[] found = new int[Math.max(MIN_CAPACITY, blocks << 2)];
+        int size = 0;
+        boolean escapeCarry = false;
+        long stringCarry = 0;
+        for (int block = 0; block < blocks; block++) {
+            long quote = 0;
+            long backslash = 0;
+            long operator = 0;
+            int base = offset + (block << BLOCK_SHIFT);
+            for (int w = 0; w < 8; w++) {
+                long word = readWord(base + (w << 3));
+                int shift = w << 3;
+                quote |= gather(equalBytes(word, QUOTE)) << shift;
+                backslash |= gather(equalBytes(word, BACKSLASH)) << shift;
+                long folded = word | BRACKET_BIT;
+                operator |= gather(equalBytes(folded, CURLY_OPEN) | equalBytes(folded, CURLY_CLOSE)
+                        | equalBytes(word, COLON) | equalBytes(word, COMMA)) << shift;
+            }
+
+            long escaped = escapeCarry ? 1L : 0L;
+            escapeCarry = false;
+            long rest = backslash;
+            while (rest != 0) {
+                int bit = Long.numberOfTrailingZeros(rest);
+                rest &= rest - 1;
+                if ((escaped & (1L << bit)) != 0) {
+                    continue;
+                }
+                if (bit == BLOCK_SIZE - 1) {
+                    escapeCarry = true;
+                } else {
+                    escaped |= 1L << (bit + 1);
+                }
+            }
+            quote &= ~escaped;
+            backslashes[block] = backslash;
+
+            long string = prefixXor(quote) ^ stringCarry;
+            stringCarry = string >> 63;
+            long bits = (operator & ~string) | quote;
+            while (bits != 0) {
+                if (size == found.length) {
+                    found = Arrays.copyOf(found, size * 2);
+                }
+                found[size++] = base + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        positions = found;
+        count = size;
+    }
+
+    private long readWord(int index) {
+        if (index + 8 <= limit) {
+            return bytes.getLong(index);
+        }
+        // Pad the tail with spaces, which never produce an index entry.
+        long word = 0;
+        for (int i = 7; i >= 0; i--) {
+            int b = index + i < limit ? bytes.get(index + i) & 0xFF : ' ';
+            word = (word << 8) | b;
+        }
+        return word;
+    }
+
+    // Sets the high bit of every byte of word that equals the byte repeated in pattern.
+    private static long equalBytes(long word, long pattern) {
+        long x = word ^ pattern;
+        return ~(((x & LOW_SEVEN_BITS) + LOW_SEVEN_BITS) | x | LOW_SEVEN_BITS);
+    }
+
+    // Moves the high bit of each byte to bit 0..7 of the result.
+    private static long gather(long highBits) {
+        return ((highBits & HIGH_BITS) >>> 7) * GATHER >>> 56;
+    }
+
+    // Bit i of the result is the parity of bits 0..i, i.e. set from an opening quote up
+    // to (but excluding) the matching closing quote.
+    private static long prefixXor(long bits) {
+        bits ^= bits << 1;
+        bits ^= bits << 2;
+        bits ^= bits << 4;
+        bits ^= bits << 8;
+        bits ^= bits << 16;
+        bits ^= bits << 32;
+        return bits;
+    }
+
+    boolean hasBackslash(int start, int end) {
+        for (int i = start; i < end; ) {
+            int block = (i - offset) >>> BLOCK_SHIFT;
+            int bit = (i - offset) & (BLOCK_SIZE - 1);
+            long mask = backslashes[block] >>> bit;
+            int span = Math.min(BLOCK_SIZE - bit, end - i);
+            if (span < BLOCK_SIZE) {
+                mask &= (1L << span) - 1;
+            }
+            if (mask != 0) {
+                return true;
+            }
+            i += span;
+        }
+        return false;
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Stage 2">
+    private enum State {
+        ObjectFirstKey,
+        ObjectReadKey,
+        ObjectReadColon,
+        ObjectReadValue,
+        ObjectReadComma,
+        ArrayFirstValue,
+        ArrayReadValue,
+        ArrayReadComma
+    }
+
+    JSONNode build() {
+        if (count == 0) {
+            return null;
+        }
+        int p = positions[0];
+        if (!isWhiteSpace(offset, p)) {
+            return null;
+        }
+        JSONNode[] stack = new JSONNode[32];
+        int depth = 0;
+        State state;
+        JSONNode field = null;
+        char c = source.charAt(p);
+        if (c == '{') {
+            state = State.ObjectFirstKey;
+            stack[depth++] = newNode(JSONType.JSONObject, p);
+        } else if (c == '[') {
+            state = State.ArrayFirstValue;
+            stack[depth++] = newNode(JSONType.JSONArray, p);
+        } else {
+            return null;
+        }
+        JSONNode root = stack[0];
+        int last = p + 1;
+        int i = 1;
+        while (depth > 0) {
+            if (i >= count) {
+                return null;
+            }
+            p = positions[i];
+            c = source.charAt(p);
+            JSONNode top = stack[depth - 1];
+            switch (state) {
+                case ObjectFirstKey:
+                case ObjectReadKey: {
+                    if (!isWhiteSpace(last, p)) {
+                        return null;
+                    }
+                    if (c == '"') {
+                        if (i + 1 >= count) {
+                            return null;
+                        }
+                        int close = positions[i + 1];
+                        field = newString(JSONType.Field, JSONType.EField, p + 1, close);
+                        if (field == null) {
+                            return null;
+                        }
+                        top.addChild(field);
+                        last = close + 1;
+                        i += 2;
+                        state = State.ObjectReadColon;
+                        continue;
+                    }
+                    if (c == '}' && state == State.ObjectFirstKey) {
+                        break;
+                    }
+                    return null;
+                }
+                case ObjectReadColon: {
+                    if (c != ':' || !isWhiteSpace(last, p)) {
+                        return null;
+                    }
+                    last = p + 1;
+                    i++;
+                    state = State.ObjectReadValue;
+                    continue;
+                }
+                case ObjectReadComma:
+                case ArrayReadComma: {
+                    if (!isWhiteSpace(last, p)) {
+                        return null;
+                    }
+                    if (c == ',') {
+                        last = p + 1;
+                        i++;
+                        state = state == State.ObjectReadComma ? State.ObjectReadKey : State.ArrayReadValue;
+                        continue;
+                    }
+                    if ((c == '}' && state == State.ObjectReadComma) || (c == ']' && state == State.ArrayReadComma)) {
+                        break;
+                    }
+                    return null;
+                }
+                default: {
+                    JSONNode parent = state == State.ObjectReadValue ? field : top;
+                    State next = top.type == JSONType.JSONObject ? State.ObjectReadComma : State.ArrayReadComma;
+                    int start = skipWhiteSpace(last, p);
+                    if (start < p) {
+                        JSONNode node = newScalar(start, p);
+                        if (node == null) {
+                            return null;
+                        }
+                        parent.addChild(node);
+                        last = node.endIndex;
+                        state = next;
+                        continue;
+                    }
+                    switch (c) {
+                        case '"': {
+                            if (i + 1 >= count) {
+                                return null;
+                            }
+                            int close = positions[i + 1];
+                            JSONNode node = newString(JSONType.String, JSONType.EString, p + 1, close);
+                            if (node == null) {
+                                return null;
+                            }
+                            parent.addChild(node);
+                            last = close + 1;
+                            i += 2;
+                            state = next;
+                            continue;
+                        }
+                        case '{':
+                        case '[': {
+                            JSONNode node = newNode(c == '{' ? JSONType.JSONObject : JSONType.JSONArray, p);
+                            parent.addChild(node);
+                            if (depth == stack.length) {
+                                stack = Arrays.copyOf(stack, depth * 2);
+                            }
+                            stack[depth++] = node;
+                            last = p + 1;
+                            i++;
+                            state = c == '{' ? State.ObjectFirstKey : State.ArrayFirstValue;
+                            continue;
+                        }
+                        case ']': {
+                            if (state == State.ArrayFirstValue) {
+                                break;
+                            }
+                            return null;
+                        }
+                        default:
+                            return null;
+                    }
+                }
+            }
+            // The container on top of the stack closes at p.
+            top.endIndex = p + 1;
+            depth--;
+            last = p + 1;
+            i++;
+            if (depth > 0) {
+                state = stack[depth - 1].type == JSONType.JSONObject ? State.ObjectReadComma : State.ArrayReadComma;
+            }
+        }
+        return root;
+    }
+
+    private JSONNode newNode(JSONType type, int index) {
+        return new JSONNode(type, index, source);
+    }
+
+    private JSONNode newString(JSONType plain, JSONType escaped, int start, int end) {
+        if (source.charAt(end) != '"') {
+            return null;
+        }
+        JSONNode node = newNode(plain, start);
+        node.endIndex = end;
+        if (hasBackslash(start, end)) {
+            if (!isValidEscapes(start, end)) {
+                return null;
+            }
+            node.type = escaped;
+        }
+        return node;
+    }
+
+    private boolean isValidEscapes(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (source.charAt(i) == '\\') {
+                switch (source.charAt(++i)) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                    case 'b':
+                    case 'f':
+                    case 'n':
+                    case 'r':
+                    case 't':
+                    case 'u':
+                        break;
+                    default:
+                        return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // A number or literal between two structural characters. It must not be followed by
+    // anything but white space.
+    private JSONNode newScalar(int start, int limit) {
+        int end = start;
+        while (end < limit && !isWhiteSpace(source.charAt(end))) {
+            end++;
+        }
+        if (!isWhiteSpace(end, limit)) {
+            return null;
+        }
+        JSONNode node;
+        switch (source.charAt(start)) {
+            case 't':
+                node = isLiteral("true", start, end) ? newNode(JSONType.BooleanTrue, start) : null;
+                break;
+            case 'f':
+                node = isLiteral("false", start, end) ? newNode(JSONType.BooleanFalse, start) : null;
+                break;
+            case 'n':
+                node = isLiteral("null", start, end) ? newNode(JSONType.Null, start) : null;
+                break;
+            default:
+                node = newNumber(start, end);
+                break;
+        }
+        if (node != null) {
+            node.endIndex = end;
+        }
+        return node;
+    }
+
+    private boolean isLiteral(String literal, int start, int end) {
+        return end - start == literal.length() && source.contentEquals(start, end, literal);
+    }
+
+    private JSONNode newNumber(int start, int end) {
+        int i = start;
+        boolean isFloat = false;
+        if (source.charAt(i) == '-') {
+            i++;
+        }
+        if (i == end || !isDigit(source.charAt(i))) {
+            return null;
+        }
+        if (source.charAt(i) == '0') {
+            i++;
+        } else {
+            while (i < end && isDigit(source.charAt(i))) {
+                i++;
+            }
+        }
+        if (i < end && source.charAt(i) == '.') {
+            isFloat = true;
+            i++;
+            if (i == end || !isDigit(source.charAt(i))) {
+                return null;
+            }
+            while (i < end && isDigit(source.charAt(i))) {
+                i++;
+            }
+        }
+        if (i < end && (source.charAt(i) == 'e' || source.charAt(i) == 'E')) {
+            isFloat = true;
+            i++;
+            if (i < end && (source.charAt(i) == '-' || source.charAt(i) == '+')) {
+                i++;
+            }
+            if (i == end || !isDigit(source.charAt(i))) {
+                return null;
+            }
+            while (i < end && isDigit(source.charAt(i))) {
+                i++;
+            }
+        }
+        if (i != end) {
+            return null;
+        }
+        return newNode(isFloat ? JSONType.Float : JSONType.Integer, start);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWhiteSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private boolean isWhiteSpace(int start, int end) {
+        return skipWhiteSpace(start, end) == end;
+    }
+
+    private int skipWhiteSpace(int start, int end) {
+        while (start < end && isWhiteSpace(source.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+    //</editor-fold>
+}
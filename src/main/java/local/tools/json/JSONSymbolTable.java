@@ -0,0 +1,141 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import java.util.Arrays;
+
+// Canonical String instances of field names, shared by the documents parsed with the same
+// JSONParseOptions. Keys found in the table are not copied out of the input again: the
+// node keeps the id of the canonical name, key iteration returns the name as is and a
+// lookup of a field finds the id of the key once and compares ids. The names live in
+// this table only, they are not added to the String pool of the JVM. Names get
+// consecutive ids in the order they are added.
+//
+// Only unescaped ASCII names are kept, and at most capacity of them, so documents with
+// arbitrary keys cannot grow the table without bound. Instances are not thread safe.
+public final class JSONSymbolTable {
+
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    private final int capacity;
+    private String[] names = new String[16];
+    private int[] hashes = new int[16];
+    // Open addressing table of id + 1, 0 marks a free slot
+    private int[] slots = new int[32];
+    private int size = 0;
+
+    public JSONSymbolTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public JSONSymbolTable(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String name(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Unknown symbol " + id);
+        }
+        return names[id];
+    }
+
+    // Id of a name, -1 if it is not in the table
+    public int id(String name) {
+        int hash = name.hashCode();
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && names[id].equals(name)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    // Gives a field node the id of the canonical name of the characters between start and
+    // end. Nothing is set if the name is not ASCII or the table is full. The hash is the
+    // one of String.hashCode().
+    void assign(JSONOptionNode node, JSONSource source, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (c >= 0x80) {
+                return;
+            }
+            hash = 31 * hash + c;
+        }
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        int id = -1;
+        for (; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int candidate = slots[slot] - 1;
+            if (hashes[candidate] == hash && source.contentEquals(start, end, names[candidate])) {
+                id = candidate;
+                break;
+            }
+        }
+        if (id < 0) {
+            if (size == capacity) {
+                return;
+            }
+            id = add(source.substring(start, end), hash, slot);
+        }
+        node.symbolId = id;
+        source.symbols = this;
+    }
+
+    private int add(String name, int hash, int slot) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int id = size;
+        names[id] = name;
+        hashes[id] = hash;
+        slots[slot] = ++size;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+}
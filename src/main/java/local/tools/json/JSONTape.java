@@ -0,0 +1,163 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import java.util.Arrays;
+
+// Compact form of a parsed document: four ints per token instead of one JSONNode each.
+// The entries are stored in document order as type, start, end and the index of the
+// entry that follows the subtree of the token, so the children of entry i are i + 1,
+// skip(i + 1), ... up to skip(i). The parser writes them while it scans, see
+// JSONParser.parseCompact().
+//
+// Nodes are only created for the containers that are visited: a container node refers
+// to the tape until its children are first asked for, see JSONNode.firstChild().
+final class JSONTape {
+
+    private static final JSONType[] TYPES = JSONType.values();
+
+    private static final int ENTRY_SHIFT = 2;
+    private static final int TYPE = 0;
+    private static final int START = 1;
+    private static final int END = 2;
+    private static final int SKIP = 3;
+    private static final int MIN_CAPACITY = 16;
+    // Entries are kept in blocks of a fixed size so a growing tape is never copied. Only
+    // the first block grows up to that size, which keeps small documents small.
+    private static final int BLOCK_SHIFT = 12;
+    private static final int BLOCK_MASK = (1 << BLOCK_SHIFT) - 1;
+
+    private final JSONSource source;
+    private final JSONSymbolTable symbols;
+    private int[][] blocks = new int[4][];
+    private int size;
+
+    JSONTape(JSONSource source, JSONSymbolTable symbols) {
+        this.source = source;
+        this.symbols = symbols;
+        blocks[0] = new int[MIN_CAPACITY << ENTRY_SHIFT];
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int get(int index, int field) {
+        return blocks[index >>> BLOCK_SHIFT][((index & BLOCK_MASK) << ENTRY_SHIFT) + field];
+    }
+
+    // Adds the entry of a container or field whose end is not known yet and returns its
+    // index for close()
+    int open(int start) {
+        return add(0, start, -1, 0);
+    }
+
+    void close(int index, JSONType type, int end) {
+        int[] block = blocks[index >>> BLOCK_SHIFT];
+        int base = (index & BLOCK_MASK) << ENTRY_SHIFT;
+        block[base + TYPE] = type.ordinal();
+        block[base + END] = end;
+        block[base + SKIP] = size;
+    }
+
+    void add(JSONType type, int start, int end) {
+        add(type.ordinal(), start, end, size + 1);
+    }
+
+    private int add(int type, int start, int end, int skip) {
+        int index = size++;
+        int blockIndex = index >>> BLOCK_SHIFT;
+        int base = (index & BLOCK_MASK) << ENTRY_SHIFT;
+        if (blockIndex == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blockIndex * 2);
+        }
+        int[] block = blocks[blockIndex];
+        if (block == null) {
+            block = new int[1 << (BLOCK_SHIFT + ENTRY_SHIFT)];
+            blocks[blockIndex] = block;
+        } else if (base == block.length) {
+            block = Arrays.copyOf(block, block.length * 2);
+            blocks[blockIndex] = block;
+        }
+        block[base + TYPE] = type;
+        block[base + START] = start;
+        block[base + END] = end;
+        block[base + SKIP] = skip;
+        return index;
+    }
+
+    // Returns the view of the finished document
+    JSONNode root() {
+        if (size <= BLOCK_MASK && size << ENTRY_SHIFT < blocks[0].length) {
+            blocks[0] = Arrays.copyOf(blocks[0], size << ENTRY_SHIFT);
+        }
+        return createNode(0);
+    }
+
+    private JSONOptionNode createNode(int index) {
+        JSONOptionNode node = new JSONOptionNode(TYPES[get(index, TYPE)], get(index, START), source);
+        node.endIndex = get(index, END);
+        if (get(index, SKIP) > index + 1) {
+            node.tape = this;
+        }
+        // The parser reuses its nodes while writing the tape, so the names are looked up here
+        if (node.type == JSONType.Field && symbols != null) {
+            symbols.assign(node, source, node.startIndex, node.endIndex);
+        }
+        return node;
+    }
+
+    // Creates the children of a container. A field always gets its value right away,
+    // only containers stay on the tape.
+    void expand(JSONNode parent) {
+        int index = find(parent.startIndex);
+        int end = get(index, SKIP);
+        for (int i = index + 1; i < end; i = get(i, SKIP)) {
+            JSONOptionNode node = createNode(i);
+            if (node.tape != null && (node.type == JSONType.Field || node.type == JSONType.EField)) {
+                node.tape = null;
+                node.addChild(createNode(i + 1));
+            }
+            parent.addChild(node);
+        }
+    }
+
+    // Entries are sorted by start position, as every token starts after the one before.
+    private int find(int start) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = get(middle, START);
+            if (value < start) {
+                low = middle + 1;
+            } else if (value > start) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        throw new IllegalStateException("No tape entry at " + start);
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+
+// Keeps the String or boxed number decoded from a node on the node itself (the memo
+// of a JSONOptionNode), so reading the same value again is a field load. The values
+// of one document share a budget of approximate bytes; once it is spent the values
+// cached first are dropped first.
+// Values replaced or removed by put/remove are dropped with their nodes.
+final class JSONValueCache {
+
+    private final long budget;
+    private long used = 0;
+    private int cached = 0;
+    // Nodes in the order their values were cached. Entries of dropped values stay until
+    // they are polled or purged.
+    private final ArrayDeque<JSONOptionNode> nodes = new ArrayDeque<>();
+
+    JSONValueCache(long budget) {
+        this.budget = budget;
+    }
+
+    long used() {
+        return used;
+    }
+
+    // A number that already has its other form cached keeps both
+    void remember(JSONOptionNode node, Object value) {
+        Object held = node.memo;
+        if (held != null) {
+            value = held instanceof String ? new NumberText(value, (String) held) : new NumberText(held, (String) value);
+        }
+        long size = sizeOf(value);
+        if (size > budget) {
+            return;
+        }
+        drop(node);
+        while (used + size > budget) {
+            drop(nodes.poll());
+        }
+        node.memo = value;
+        used += size;
+        cached++;
+        nodes.add(node);
+        if (nodes.size() > 2 * cached + 64) {
+            nodes.removeIf(entry -> entry.memo == null);
+        }
+    }
+
+    // Drops the values of node and of the part of its subtree that has been read
+    void forget(JSONNode node) {
+        ArrayDeque<JSONNode> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            JSONNode pointer = pending.pop();
+            drop(pointer);
+            for (JSONNode child = pointer.child; child != null; child = child.next) {
+                pending.push(child);
+            }
+        }
+    }
+
+    private void drop(JSONNode node) {
+        if (node instanceof JSONOptionNode) {
+            drop((JSONOptionNode) node);
+        }
+    }
+
+    private void drop(JSONOptionNode node) {
+        if (node.memo != null) {
+            used -= sizeOf(node.memo);
+            cached--;
+            node.memo = null;
+        }
+    }
+
+    // Rough heap size of the value including its object header
+    private static long sizeOf(Object value) {
+        if (value instanceof String) {
+            return 56 + 2L * ((String) value).length();
+        }
+        if (value instanceof BigInteger) {
+            return 56 + ((BigInteger) value).bitLength() / 8;
+        }
+        if (value instanceof NumberText) {
+            return 16 + sizeOf(((NumberText) value).number) + sizeOf(((NumberText) value).text);
+        }
+        return 16;
+    }
+
+    // The value of a number that has been read both as a number and as a String
+    static final class NumberText {
+
+        final Object number;
+        final String text;
+
+        NumberText(Object number, String text) {
+            this.number = number;
+            this.text = text;
+        }
+    }
+}
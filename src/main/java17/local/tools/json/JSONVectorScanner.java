@@ -0,0 +1,126 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Compares a whole vector of bytes or chars per step. Runs are usually short, so the
+// first element is checked on its own and the tail shorter than a vector is left to the
+// scalar loops.
+final class JSONVectorScanner extends JSONScanner {
+
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Short> CHARS = ShortVector.SPECIES_PREFERRED;
+
+    @Override
+    int skipWhiteSpace(char[] buffer, int from, int to) {
+        if (from >= to || !isWhiteSpace(buffer[from])) {
+            return from;
+        }
+        for (int bound = to - CHARS.length(); from <= bound; from += CHARS.length()) {
+            ShortVector v = ShortVector.fromCharArray(CHARS, buffer, from);
+            int i = v.eq((short) ' ').or(v.eq((short) '\t')).or(v.eq((short) '\n')).or(v.eq((short) '\r')).not().firstTrue();
+            if (i < CHARS.length()) {
+                return from + i;
+            }
+        }
+        return super.skipWhiteSpace(buffer, from, to);
+    }
+
+    @Override
+    int skipWhiteSpace(byte[] buffer, int from, int to) {
+        if (from >= to || !isWhiteSpace(buffer[from])) {
+            return from;
+        }
+        for (int bound = to - BYTES.length(); from <= bound; from += BYTES.length()) {
+            ByteVector v = ByteVector.fromArray(BYTES, buffer, from);
+            int i = v.eq((byte) ' ').or(v.eq((byte) '\t')).or(v.eq((byte) '\n')).or(v.eq((byte) '\r')).not().firstTrue();
+            if (i < BYTES.length()) {
+                return from + i;
+            }
+        }
+        return super.skipWhiteSpace(buffer, from, to);
+    }
+
+    @Override
+    int skipDigits(char[] buffer, int from, int to) {
+        if (from >= to || buffer[from] < '0' || buffer[from] > '9') {
+            return from;
+        }
+        // Chars from U+8000 on are negative shorts and end the run as well.
+        for (int bound = to - CHARS.length(); from <= bound; from += CHARS.length()) {
+            ShortVector v = ShortVector.fromCharArray(CHARS, buffer, from);
+            VectorMask<Short> other = v.compare(VectorOperators.LT, (short) '0').or(v.compare(VectorOperators.GT, (short) '9'));
+            int i = other.firstTrue();
+            if (i < CHARS.length()) {
+                return from + i;
+            }
+        }
+        return super.skipDigits(buffer, from, to);
+    }
+
+    @Override
+    int skipDigits(byte[] buffer, int from, int to) {
+        if (from >= to || buffer[from] < '0' || buffer[from] > '9') {
+            return from;
+        }
+        for (int bound = to - BYTES.length(); from <= bound; from += BYTES.length()) {
+            ByteVector v = ByteVector.fromArray(BYTES, buffer, from);
+            VectorMask<Byte> other = v.compare(VectorOperators.LT, (byte) '0').or(v.compare(VectorOperators.GT, (byte) '9'));
+            int i = other.firstTrue();
+            if (i < BYTES.length()) {
+                return from + i;
+            }
+        }
+        return super.skipDigits(buffer, from, to);
+    }
+
+    @Override
+    int skipToQuote(char[] buffer, int from, int to, char quote) {
+        for (int bound = to - CHARS.length(); from <= bound; from += CHARS.length()) {
+            ShortVector v = ShortVector.fromCharArray(CHARS, buffer, from);
+            int i = v.eq((short) quote).or(v.eq((short) '\\')).firstTrue();
+            if (i < CHARS.length()) {
+                return from + i;
+            }
+        }
+        return super.skipToQuote(buffer, from, to, quote);
+    }
+
+    @Override
+    int skipToQuote(byte[] buffer, int from, int to, char quote) {
+        for (int bound = to - BYTES.length(); from <= bound; from += BYTES.length()) {
+            ByteVector v = ByteVector.fromArray(BYTES, buffer, from);
+            int i = v.eq((byte) quote).or(v.eq((byte) '\\')).firstTrue();
+            if (i < BYTES.length()) {
+                return from + i;
+            }
+        }
+        return super.skipToQuote(buffer, from, to, quote);
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JSONDeferredTest {
+
+    private static final JSONParseOptions DEFERRED = new JSONParseOptions().deferred(true);
+
+    private static final String DOCUMENT = "{\"id\":7,\"payload\":{\"text\":\"} ] { [\",'quoted':'}\\\"]',\"items\":[1,[2,[3]],{\"a\":\"\\\\\"}]},"
+            + "\"list\":[{\"b\":true},[],{}],\"name\":\"envelope\"}";
+
+    @Test
+    public void testSameAsTree() throws JSONException {
+        JSONObject expected = new JSONObject(DOCUMENT);
+        JSONElement[] deferred = {
+                JSONElement.parse(DOCUMENT, DEFERRED),
+                JSONElement.parse(DOCUMENT.toCharArray(), 0, DOCUMENT.length(), DEFERRED),
+                JSONElement.parse(DOCUMENT.getBytes(StandardCharsets.UTF_8), DEFERRED),
+                JSONElement.parse(ByteBuffer.wrap(DOCUMENT.getBytes(StandardCharsets.UTF_8)), DEFERRED),
+        };
+        for (JSONElement element : deferred) {
+            JSONObject object = (JSONObject) element;
+            assertEquals(expected.toString(), object.toString());
+            assertEquals(expected, object);
+        }
+        JSONObject object = (JSONObject) JSONElement.parse(DOCUMENT, DEFERRED);
+        assertEquals("} ] { [", object.getJSONObject("payload").getString("text"));
+        assertEquals("}\"]", object.getJSONObject("payload").getString("quoted"));
+        assertEquals(3, object.getJSONObject("payload").getJSONArray("items").getJSONArray(1).getJSONArray(1).getInt(0));
+        assertEquals("\\", object.getJSONObject("payload").getJSONArray("items").getJSONObject(2).getString("a"));
+        assertTrue(object.getJSONArray("list").getJSONObject(0).getBoolean("b"));
+    }
+
+    @Test
+    public void testOnlyReadContainersAreBuilt() throws JSONException {
+        JSONObject object = (JSONObject) JSONElement.parse(DOCUMENT, DEFERRED);
+        assertEquals(7, object.getInt("id"));
+        assertEquals("envelope", object.getString("name"));
+        JSONObject payload = object.getJSONObject("payload");
+        JSONArray list = object.getJSONArray("list");
+        assertTrue(((JSONOptionNode) payload.root).deferred);
+        assertNull(payload.root.child);
+        assertTrue(((JSONOptionNode) list.root).deferred);
+
+        JSONArray items = payload.getJSONArray("items");
+        assertFalse(((JSONOptionNode) payload.root).deferred);
+        assertTrue(((JSONOptionNode) items.root).deferred);
+        assertTrue(((JSONOptionNode) list.root).deferred);
+        assertEquals(3, items.length());
+        assertTrue(((JSONOptionNode) items.getJSONArray(1).root).deferred);
+    }
+
+    @Test
+    public void testErrorsInsideNestedContainers() throws JSONException {
+        JSONObject object = (JSONObject) JSONElement.parse("{\"ok\":1,\"bad\":{\"a\" 1},\"list\":[1,,2]}", DEFERRED);
+        assertEquals(1, object.getInt("ok"));
+        try {
+            object.getJSONObject("bad").getInt("a");
+            fail();
+        } catch (JSONException ignored) {
+        }
+        try {
+            object.getJSONArray("list").getInt(1);
+            fail();
+        } catch (JSONException ignored) {
+        }
+        try {
+            JSONElement.parse("{\"unclosed\":[1,{\"a\":2}", DEFERRED);
+            fail();
+        } catch (JSONException e) {
+            assertEquals("Unexpected end of input", e.getMessage().substring(0, 23));
+        }
+    }
+
+    @Test
+    public void testModify() throws JSONException {
+        JSONObject object = (JSONObject) JSONElement.parse(DOCUMENT, DEFERRED);
+        object.getJSONObject("payload").put("added", 1);
+        object.getJSONArray("list").put(0, "first");
+        object.getJSONArray("list").getJSONObject(1).remove("b");
+
+        JSONObject expected = new JSONObject(DOCUMENT);
+        expected.getJSONObject("payload").put("added", 1);
+        expected.getJSONArray("list").put(0, "first");
+        expected.getJSONArray("list").getJSONObject(1).remove("b");
+        assertEquals(expected.toString(), object.toString());
+    }
+
+    @Test
+    public void testOptionsReachNestedContainers() throws JSONException {
+        JSONSymbolTable symbols = new JSONSymbolTable();
+        JSONParseOptions options = new JSONParseOptions().deferred(true).strict(true).symbols(symbols);
+        JSONObject object = (JSONObject) JSONElement.parse("{\"a\":{'b':1},\"c\":{\"id\":2}}", options);
+        // Changing the options afterwards does not change how the document is read
+        options.strict(false);
+
+        try {
+            object.getJSONObject("a").getInt("b");
+            fail();
+        } catch (JSONException e) {
+            assertEquals(6, e.getPosition());
+        }
+        assertEquals(2, object.getJSONObject("c").getInt("id"));
+        assertEquals(2, symbols.id("id"));
+    }
+
+    @Test
+    public void testModesCanNotBeCombined() {
+        JSONParseOptions[] invalid = {
+                new JSONParseOptions().deferred(true).compact(true),
+                new JSONParseOptions().deferred(true).paths(JSONPaths.compile("a")),
+        };
+        for (JSONParseOptions options : invalid) {
+            try {
+                JSONElement.parse("{\"a\":1}", options);
+                fail();
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JSONFileWindowTest {
+
+    private static final String DOCUMENT = "  {\"name\" : \"J\u00f6rg \\\"\u4e2d\\\"\", \"age\":22, 'size':-1.5e3, \"ok\":true, \"none\" : null,"
+            + " \"list\":[1, 22, 333, \"x\\u0041y\", [], {}, unquoted], key:value, \"nested\":{\"a\":{\"b\":[false]}}}  \n";
+
+    private static JSONElement parse(Path dir, String json, JSONParseOptions options, int windowSize) throws IOException {
+        Path file = dir.resolve("window.json");
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return JSONElement.parse(channel, channel.size(), options, windowSize);
+        }
+    }
+
+    @Test
+    public void testEveryWindowSize(@TempDir Path dir) throws IOException {
+        JSONObject expected = new JSONObject(DOCUMENT);
+        int size = DOCUMENT.getBytes(StandardCharsets.UTF_8).length;
+        for (int windowSize = 1; windowSize <= size; windowSize++) {
+            JSONObject object = (JSONObject) parse(dir, DOCUMENT, new JSONParseOptions(), windowSize);
+            assertEquals(expected, object);
+            assertEquals("J\u00f6rg \"\u4e2d\"", object.getString("name"));
+            assertEquals(-1500.0, object.getDouble("size"), 0);
+            assertEquals("xAy", object.getJSONArray("list").getString(3));
+            assertEquals("value", object.getString("key"));
+            assertEquals(expected.toString(), object.toString());
+        }
+    }
+
+    @Test
+    public void testOptions(@TempDir Path dir) throws IOException {
+        String json = "[{\"id\":1,\"s\":\"ok\"},{\"id\":2,\"s\":\"ok\"},1e3,true]  ";
+        JSONSymbolTable symbols = new JSONSymbolTable();
+        JSONParseOptions options = new JSONParseOptions().strict(true).decodeNumbers(true).symbols(symbols).cacheValues(1024);
+        for (int windowSize = 1; windowSize <= json.length(); windowSize++) {
+            JSONArray array = (JSONArray) parse(dir, json, options, windowSize);
+            assertEquals(new JSONArray(json), array);
+            assertEquals(2, array.getJSONObject(1).getInt("id"));
+            assertEquals(1000.0, array.getDouble(2), 0);
+            assertTrue(array.getBoolean(3));
+        }
+        assertEquals(2, symbols.size());
+
+        try {
+            parse(dir, json, new JSONParseOptions().compact(true), 8);
+            fail("Required exception wasn't thrown.");
+        } catch (JSONException expected) {
+        }
+    }
+
+    @Test
+    public void testErrorsAreAtFilePositions(@TempDir Path dir) throws IOException {
+        String[] invalid = {"{\"a\":[1,2,{\"b\":3,}]}", "{\"a\":[1,2,{\"b\":3}", "{\"a\":1} x"};
+        JSONParseOptions strict = new JSONParseOptions().strict(true);
+        for (String json : invalid) {
+            int expected = 0;
+            try {
+                JSONElement.parse(json, strict);
+                fail(json);
+            } catch (JSONException e) {
+                expected = e.getPosition();
+            }
+            for (int windowSize = 1; windowSize <= json.length(); windowSize++) {
+                try {
+                    parse(dir, json, strict, windowSize);
+                    fail(json);
+                } catch (JSONException e) {
+                    assertEquals(json + " " + windowSize, expected, e.getPosition());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JSONLinesReaderTest {
+
+    private static String createLines(int count) {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            lines.append("{\"id\":").append(i).append(",\"name\":\"n\u00e4me").append(i).append("\",\"tags\":[").append(i % 3).append("]}");
+            lines.append(i % 2 == 0 ? "\n" : "\r\n");
+            if (i % 10 == 0) {
+                lines.append("  \n");
+            }
+        }
+        return lines.toString();
+    }
+
+    @Test
+    public void testReadLines() throws JSONException {
+        JSONLinesReader reader = new JSONLinesReader(createLines(100).getBytes(StandardCharsets.UTF_8));
+        int count = 0;
+        JSONObject previous = null;
+        while (reader.hasNext()) {
+            JSONObject record = reader.next();
+            assertEquals(count, record.getInt("id"));
+            assertEquals("n\u00e4me" + count, record.getString("name"));
+            assertNotSame(previous, record);
+            previous = record;
+            count++;
+        }
+        assertEquals(100, count);
+        try {
+            reader.next();
+            fail("Required exception wasn't thrown.");
+        } catch (NoSuchElementException e) {
+        }
+    }
+
+    @Test
+    public void testLastLineWithoutNewLine() throws JSONException {
+        JSONLinesReader reader = new JSONLinesReader("{\"a\":1}\n{\"a\":2}");
+        assertEquals(1, reader.next().getInt("a"));
+        assertEquals(2, reader.next().getInt("a"));
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void testReuseRecords() throws JSONException {
+        JSONLinesReader reader = new JSONLinesReader(createLines(100).toCharArray(), 0, createLines(100).length()).reuseRecords(true);
+        JSONObject first = reader.next();
+        assertEquals(0, first.getInt("id"));
+        for (int i = 1; i < 100; i++) {
+            JSONObject record = reader.next();
+            assertSame(first, record);
+            assertEquals(i, record.getInt("id"));
+            assertEquals("n\u00e4me" + i, record.getString("name"));
+            assertEquals(i % 3, record.getJSONArray("tags").getInt(0));
+            assertEquals(3, record.length());
+        }
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void testTruncatedRecord() {
+        JSONLinesReader reader = new JSONLinesReader("{\"a\":1\n{\"a\":2}\n");
+        try {
+            reader.next();
+            fail("Required exception wasn't thrown.");
+        } catch (JSONException e) {
+        }
+    }
+
+    @Test
+    public void testMappedFileWindows(@TempDir Path dir) throws IOException, JSONException {
+        Path file = dir.resolve("data.jsonl");
+        String lines = createLines(1000);
+        Files.write(file, lines.getBytes(StandardCharsets.UTF_8));
+
+        try (JSONLinesReader reader = JSONLinesReader.open(file)) {
+            int count = 0;
+            while (reader.hasNext()) {
+                assertEquals(count++, reader.next().getInt("id"));
+            }
+            assertEquals(1000, count);
+        }
+
+        // Windows smaller than a record have to grow, others end in the middle of a record.
+        for (int windowSize : new int[]{8, 64, 1000}) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                JSONLinesReader reader = new JSONLinesReader(channel, false, 0, channel.size(), windowSize).reuseRecords(windowSize == 64);
+                int count = 0;
+                while (reader.hasNext()) {
+                    JSONObject record = reader.next();
+                    assertEquals(count, record.getInt("id"));
+                    assertEquals("n\u00e4me" + count, record.getString("name"));
+                    count++;
+                }
+                assertEquals(1000, count);
+                assertTrue(channel.isOpen());
+            }
+        }
+    }
+
+    @Test
+    public void testParallelStream(@TempDir Path dir) throws IOException, JSONException {
+        Path file = dir.resolve("data.jsonl");
+        Files.write(file, createLines(1000).getBytes(StandardCharsets.UTF_8));
+
+        try (Stream<JSONObject> stream = JSONLinesReader.stream(file, true)) {
+            assertEquals(499500L, stream.mapToLong(record -> record.getLong("id")).sum());
+        }
+    }
+
+    @Test
+    public void testSpliteratorSplitsAtLineBoundaries(@TempDir Path dir) throws IOException, JSONException {
+        Path file = dir.resolve("data.jsonl");
+        Files.write(file, createLines(1000).getBytes(StandardCharsets.UTF_8));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Spliterator<JSONObject> spliterator = new JSONLinesSpliterator(channel, 0, channel.size(), 128, 64);
+            Spliterator<JSONObject> prefix = spliterator.trySplit();
+            assertTrue(prefix != null);
+            assertEquals(channel.size(), prefix.estimateSize() + spliterator.estimateSize());
+
+            spliterator = new JSONLinesSpliterator(channel, 0, channel.size(), 128, 64);
+            List<Long> ids = StreamSupport.stream(spliterator, true)
+                    .map(record -> record.getLong("id"))
+                    .collect(Collectors.toList());
+            assertEquals(1000, ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                assertEquals(i, ids.get(i).longValue());
+            }
+        }
+    }
+}
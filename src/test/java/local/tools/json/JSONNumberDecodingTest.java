@@ -0,0 +1,129 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JSONNumberDecodingTest {
+
+    private static final JSONParseOptions DECODE = new JSONParseOptions().decodeNumbers(true);
+
+    private static final String[] NUMBERS = {
+            "0", "-0", "7", "-7", "2147483647", "2147483648", "-2147483649", "9223372036854775807",
+            "-9223372036854775807", "123456789012345678901234", "100000000000000000000",
+            "0.0", "-0.0", "1.5", "-2e3", "1E22", "1e23", "3.14159", "0.1", "0.000001", "123456.789e-3",
+            "9007199254740993.0", "4.9e-324", "1.7976931348623157e308", "1e-400", "2.5E+2", "0e10",
+            "12345678901234567890.5", "1.00000000000000000000000000001",
+    };
+
+    @Test
+    public void testSameValues() throws JSONException {
+        for (String number : NUMBERS) {
+            String document = "[" + number + ", {\"n\":" + number + "}]";
+            JSONArray expected = new JSONArray(document);
+            JSONArray[] decoded = {
+                    (JSONArray) JSONElement.parse(document, DECODE),
+                    (JSONArray) JSONElement.parse(document.getBytes(StandardCharsets.UTF_8), DECODE),
+            };
+            for (JSONArray array : decoded) {
+                assertSame(number, expected.getDouble(0), array.getDouble(0));
+                assertSame(number, expected.getJSONObject(1).getDouble("n"), array.getJSONObject(1).getDouble("n"));
+                assertEquals(number, expected.optLong(0), array.optLong(0));
+                assertEquals(number, expected.optInt(0), array.optInt(0));
+                assertEquals(number, expected.getString(0), array.getString(0));
+                assertEquals(number, expected.toString(), array.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testDecodedOnParse() throws JSONException {
+        JSONArray array = (JSONArray) JSONElement.parse("[42, -1.25, 1e23, 123456789012345678901234, +3]", DECODE);
+        JSONOptionNode node = (JSONOptionNode) array.root.firstChild();
+        assertTrue(node.numberDecoded);
+        assertEquals(42, node.numberBits);
+        node = (JSONOptionNode) node.next;
+        assertTrue(node.numberDecoded);
+        assertEquals(-1.25, Double.longBitsToDouble(node.numberBits), 0);
+        assertFalse(((JSONOptionNode) node.next).numberDecoded);
+        assertFalse(((JSONOptionNode) node.next.next).numberDecoded);
+        assertFalse(((JSONOptionNode) node.next.next.next).numberDecoded);
+
+        // Without the option the nodes have no room for decoded numbers
+        array = new JSONArray("[42]");
+        assertFalse(array.root.firstChild() instanceof JSONOptionNode);
+    }
+
+    @Test
+    public void testRandomFloats() throws JSONException {
+        Random random = new Random(18);
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < 2000; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(random.nextInt(2000000) - 1000000).append('.').append(random.nextInt(100000));
+            if (random.nextBoolean()) {
+                builder.append('e').append(random.nextInt(30) - 15);
+            }
+        }
+        String document = builder.append(']').toString();
+        JSONArray expected = new JSONArray(document);
+        JSONArray decoded = (JSONArray) JSONElement.parse(document, DECODE);
+        for (int i = 0; i < expected.length(); i++) {
+            assertSame(expected.getString(i), expected.getDouble(i), decoded.getDouble(i));
+        }
+    }
+
+    @Test
+    public void testErrors() {
+        String[] documents = {"[01]", "[1.]", "[-]", "[1e]", "[1e+]", "[-a]", "[1"};
+        for (String document : documents) {
+            int expected = position(document, new JSONParseOptions());
+            assertEquals(document, expected, position(document, DECODE));
+        }
+    }
+
+    private static void assertSame(String message, double expected, double actual) {
+        assertEquals(message, Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual));
+    }
+
+    private static int position(String document, JSONParseOptions options) {
+        try {
+            JSONElement.parse(document, options);
+            fail(document);
+            return -1;
+        } catch (JSONException e) {
+            return e.getPosition();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JSONNumberParserTest {
+
+    private static final String[] NUMBERS = {
+            "0", "-0", "0.0", "-0.0", "1", "-1", "0.1", "0.2", "0.3", "1.5", "3.141592653589793", "1e22", "1e23",
+            "-1e23", "9007199254740992", "9007199254740993", "9007199254740993.0", "9007199254740995",
+            "2.2250738585072012e-308", "2.2250738585072011e-308", "4.9e-324", "2.4703282292062327e-324",
+            "1.7976931348623157e308", "1.7976931348623158e308", "1.7976931348623159e308", "1e309", "1e-400",
+            "7.2057594037927933e+16", "7.3177701707893310e+15", "123456789012345678901234567890",
+            "0.000000000000000000000000000001", "1.00000000000000011102230246251565404236316680908203125",
+            "1.00000000000000011102230246251565404236316680908203124", "1.00000000000000011102230246251565404236316680908203126",
+            "12345678901234567890.123456789", "9999999999999999999", "99999999999999999999", "1E+2", "2.5e-3",
+    };
+
+    @Test
+    public void testKnownValues() {
+        for (String number : NUMBERS) {
+            assertSame(number, Double.parseDouble(number), decode(number));
+        }
+    }
+
+    @Test
+    public void testRandomBits() {
+        Random random = new Random(21);
+        int fallbacks = 0;
+        for (int i = 0; i < 200000; i++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                continue;
+            }
+            String[] texts = {
+                    Double.toString(value),
+                    String.format(Locale.ROOT, "%.17e", value),
+                    String.format(Locale.ROOT, "%.24e", value),
+                    String.format(Locale.ROOT, "%.3e", value),
+            };
+            for (String text : texts) {
+                assertSame(text, Double.parseDouble(text), decode(text));
+                if (Double.isNaN(JSONNumberParser.parseDouble(node(text)))) {
+                    fallbacks++;
+                }
+            }
+        }
+        // Only subnormals and the hard cases go to Double.parseDouble
+        assertTrue("Fallbacks: " + fallbacks, fallbacks < 20000);
+    }
+
+    @Test
+    public void testRandomDigits() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            StringBuilder builder = new StringBuilder();
+            if (random.nextBoolean()) {
+                builder.append('-');
+            }
+            int digits = 1 + random.nextInt(random.nextBoolean() ? 8 : 25);
+            for (int d = 0; d < digits; d++) {
+                builder.append((char) ('0' + random.nextInt(10)));
+            }
+            if (random.nextBoolean()) {
+                builder.insert(builder.length() - random.nextInt(digits), '.');
+                if (builder.charAt(builder.length() - 1) == '.') {
+                    builder.append('0');
+                }
+            }
+            if (random.nextInt(3) > 0) {
+                builder.append('e').append(random.nextInt(700) - 350);
+            }
+            String text = builder.toString();
+            assertSame(text, Double.parseDouble(text), decode(text));
+        }
+    }
+
+    @Test
+    public void testThroughNodes() throws JSONException {
+        StringBuilder builder = new StringBuilder("[");
+        for (String number : NUMBERS) {
+            builder.append(number).append(',');
+        }
+        builder.append("\"2.5\",\" 2.5\",\"0x1p3\",\"NaN\"]");
+        JSONArray array = new JSONArray(builder.toString());
+        for (int i = 0; i < NUMBERS.length; i++) {
+            assertSame(NUMBERS[i], Double.parseDouble(NUMBERS[i]), array.getDouble(i));
+        }
+        assertSame("2.5", 2.5, array.getDouble(NUMBERS.length));
+        assertSame(" 2.5", 2.5, array.getDouble(NUMBERS.length + 1));
+        assertSame("0x1p3", 8.0, array.getDouble(NUMBERS.length + 2));
+        assertTrue(Double.isNaN(array.getDouble(NUMBERS.length + 3)));
+
+        JSONObject object = new JSONObject("{}").put("a", 0.1).put("b", 1.0e300);
+        assertSame("0.1", 0.1, object.getDouble("a"));
+        assertSame("1.0e300", 1.0e300, object.getDouble("b"));
+    }
+
+    private static double decode(String text) {
+        double value = JSONNumberParser.parseDouble(node(text));
+        return Double.isNaN(value) ? Double.parseDouble(text) : value;
+    }
+
+    private static JSONNode node(String text) {
+        JSONNode node = new JSONNode(JSONType.Float, 0, new JSONSource.Chars(text.toCharArray(), 0, text.length()));
+        node.endIndex = text.length();
+        return node;
+    }
+
+    private static void assertSame(String message, double expected, double actual) {
+        assertEquals(message, Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual));
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JSONReusableParserTest {
+
+    private static String document(int i) {
+        return "{\"id\":" + i + ",\"name\":\"n" + i + "\",\"list\":[" + i + ",{\"x\":\"\\u0041\"}],\"deep\":{\"a\":{\"b\":[[" + i + "]]}}}";
+    }
+
+    @Test
+    public void testParseSequence() throws JSONException {
+        JSONReusableParser parser = new JSONReusableParser();
+        for (int i = 0; i < 100; i++) {
+            String json = document(i);
+            JSONElement element;
+            switch (i % 4) {
+                case 0:
+                    element = parser.parse(json);
+                    break;
+                case 1:
+                    element = parser.parse(json.toCharArray(), 0, json.length());
+                    break;
+                case 2:
+                    element = parser.parse(json.getBytes(StandardCharsets.UTF_8));
+                    break;
+                default:
+                    element = parser.parse(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+                    break;
+            }
+            JSONObject object = (JSONObject) element;
+            assertEquals(new JSONObject(json), object);
+            assertEquals(i, object.getInt("id"));
+            assertEquals("A", object.getJSONArray("list").getJSONObject(1).getString("x"));
+            parser.release();
+        }
+        JSONArray array = (JSONArray) parser.parse("[1,[2]]");
+        assertEquals(2, array.getJSONArray(1).getInt(0));
+        parser.release();
+        array = (JSONArray) parser.parse("[3]");
+        assertEquals(1, array.length());
+        assertEquals(3, array.getInt(0));
+    }
+
+    @Test
+    public void testReleasedDocumentIsRecycled() throws JSONException {
+        JSONReusableParser parser = new JSONReusableParser();
+        JSONObject first = (JSONObject) parser.parse(document(1));
+        JSONNode root = first.root;
+        parser.release();
+        JSONObject second = (JSONObject) parser.parse(document(2));
+        assertSame(first, second);
+        assertSame(root, second.root);
+        assertEquals(2, second.getInt("id"));
+    }
+
+    @Test
+    public void testUnreleasedDocumentStaysValid() throws JSONException {
+        JSONReusableParser parser = new JSONReusableParser();
+        JSONObject first = (JSONObject) parser.parse(document(1));
+        JSONObject second = (JSONObject) parser.parse(document(22));
+        assertNotSame(first, second);
+        assertEquals(1, first.getInt("id"));
+        assertEquals("n1", first.getString("name"));
+        assertEquals(1, first.getJSONObject("deep").getJSONObject("a").getJSONArray("b").getJSONArray(0).getInt(0));
+        assertEquals(22, second.getInt("id"));
+        assertEquals(new JSONObject(document(1)), first);
+    }
+
+    @Test
+    public void testErrorKeepsParserUsable() throws JSONException {
+        JSONReusableParser parser = new JSONReusableParser();
+        try {
+            parser.parse("{\"a\":[1,}");
+            fail();
+        } catch (JSONException ignored) {
+        }
+        JSONObject object = (JSONObject) parser.parse(document(5));
+        assertEquals(5, object.getInt("id"));
+        assertTrue(object.has("deep"));
+    }
+}
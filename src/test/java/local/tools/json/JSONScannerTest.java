@@ -0,0 +1,124 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JSONScannerTest {
+
+    private static final char[] ALPHABET = {' ', '\t', '\n', '\r', '0', '5', '9', 'a', '"', '\'', '\\', '/', '\u00e4', '\u8000', '\uffff'};
+
+    @Test
+    public void testImplementation() {
+        boolean vector = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        assertEquals(vector ? "JSONVectorScanner" : "JSONScanner", JSONScanner.INSTANCE.getClass().getSimpleName());
+    }
+
+    @Test
+    public void testSameAsScalar() {
+        JSONScanner scalar = new JSONScanner();
+        JSONScanner scanner = JSONScanner.INSTANCE;
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int length = random.nextInt(300);
+            // Long runs of one class, so whole vectors match
+            char[] chars = new char[length];
+            for (int i = 0; i < length; ) {
+                char c = ALPHABET[random.nextInt(ALPHABET.length)];
+                int run = 1 + random.nextInt(100);
+                for (; run > 0 && i < length; run--) {
+                    chars[i++] = random.nextInt(8) == 0 ? ALPHABET[random.nextInt(ALPHABET.length)] : c;
+                }
+            }
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = (byte) chars[i];
+            }
+            int to = length - random.nextInt(Math.max(1, length / 4));
+            for (int from = 0; from <= to; from++) {
+                assertEquals(scalar.skipWhiteSpace(chars, from, to), scanner.skipWhiteSpace(chars, from, to));
+                assertEquals(scalar.skipWhiteSpace(bytes, from, to), scanner.skipWhiteSpace(bytes, from, to));
+                assertEquals(scalar.skipDigits(chars, from, to), scanner.skipDigits(chars, from, to));
+                assertEquals(scalar.skipDigits(bytes, from, to), scanner.skipDigits(bytes, from, to));
+                assertEquals(scalar.skipToQuote(chars, from, to, '"'), scanner.skipToQuote(chars, from, to, '"'));
+                assertEquals(scalar.skipToQuote(bytes, from, to, '\''), scanner.skipToQuote(bytes, from, to, '\''));
+            }
+        }
+    }
+
+    @Test
+    public void testLongRuns() throws JSONException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            text.append((char) ('a' + i % 26));
+        }
+        StringBuilder digits = new StringBuilder("1");
+        for (int i = 0; i < 200; i++) {
+            digits.append(i % 10);
+        }
+        String json = "{\n                                                                          "
+                + "\"key\"   :   \"" + text + "\\\"" + text + "\",\n\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t"
+                + "\"n\":" + digits + "." + digits + "e" + digits.substring(0, 2) + ", 'single':'" + text + "\u00e4" + text + "'}";
+        byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+        JSONObject[] objects = {
+                new JSONObject(json),
+                new JSONObject(json.toCharArray()),
+                new JSONObject(utf8),
+                new JSONObject(ByteBuffer.wrap(utf8)),
+                new JSONObject(ByteBuffer.wrap(utf8).asReadOnlyBuffer()),
+                new JSONObject(new StringBuilder(json)),
+        };
+        for (JSONObject object : objects) {
+            assertEquals(text + "\"" + text, object.getString("key"));
+            assertEquals(text + "\u00e4" + text, object.getString("single"));
+            assertEquals(Double.parseDouble(digits + "." + digits + "e" + digits.substring(0, 2)), object.getDouble("n"), 0);
+        }
+    }
+
+    @Test
+    public void testEndOfInput() {
+        String[] truncated = {"[\"abcdefghijklmnopqrstuvwxyzabcdefghijklmnopqrstuvwxyzabcdefghijklmnopqrstuvwxyz",
+                "[1234567890123456789012345678901234567890123456789012345678901234567890",
+                "[1,                                                                            "};
+        for (String json : truncated) {
+            byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+            for (int length = 2; length <= utf8.length; length += 7) {
+                try {
+                    new JSONArray(utf8, 0, length);
+                    fail(json.substring(0, length));
+                } catch (JSONException e) {
+                    assertTrue(e.getMessage(), e.getMessage().startsWith("Unexpected end"));
+                }
+            }
+        }
+    }
+}
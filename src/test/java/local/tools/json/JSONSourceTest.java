@@ -0,0 +1,91 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JSONSourceTest {
+
+    private static final String TEXT = "xx{\"a\":[1,\"b\"]}yy";
+
+    @Test
+    public void testSlice() throws JSONException {
+        byte[] utf8 = TEXT.getBytes(StandardCharsets.UTF_8);
+        JSONSource[] sources = {
+                new JSONSource.Chars(TEXT.toCharArray(), 0, TEXT.length()),
+                new JSONSource.Sequence(TEXT),
+                new JSONSource.Utf8(utf8, 0, utf8.length),
+                new JSONSource.Utf8Buffer(ByteBuffer.wrap(utf8)),
+                new JSONSource.ChunkedChars(new StringReader(TEXT)),
+                new JSONSource.ChunkedUtf8(new ByteArrayInputStream(utf8)),
+        };
+        JSONObject expected = new JSONObject("{\"a\":[1,\"b\"]}");
+        for (JSONSource source : sources) {
+            JSONSource slice = source.slice(2, TEXT.length() - 2);
+            assertEquals(2, slice.offset);
+            assertEquals(TEXT.length() - 2, slice.limit);
+            assertEquals("{\"a\"", slice.substring(2, 6));
+
+            JSONParser parser = new JSONParser(slice);
+            parser.setOptions(new JSONParseOptions().strict(true));
+            parser.parse();
+            assertEquals(expected, new JSONObject(parser.getRoot()));
+        }
+    }
+
+    @Test
+    public void testUtf8ContentEquals() {
+        String text = "a\u00fc\u20ac\ud83d\ude00z";
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        JSONSource[] sources = {
+                new JSONSource.Utf8(utf8, 0, utf8.length),
+                new JSONSource.Utf8Buffer(ByteBuffer.wrap(utf8)),
+                new JSONSource.ChunkedUtf8(new ByteArrayInputStream(utf8)),
+        };
+        for (JSONSource source : sources) {
+            assertTrue(source.isUtf8());
+            // The parser has read a range before anything compares it
+            source.charAt(utf8.length - 1);
+            assertTrue(source.contentEquals(0, utf8.length, text));
+            assertTrue(source.contentEquals(1, utf8.length - 1, text.substring(1, text.length() - 1)));
+            assertFalse(source.contentEquals(0, utf8.length, text.substring(0, text.length() - 1)));
+            assertFalse(source.contentEquals(0, utf8.length - 1, text));
+            assertFalse(source.contentEquals(0, utf8.length, "a\u00fd\u20ac\ud83d\ude00z"));
+            assertFalse(source.contentEquals(0, utf8.length, "a\u00fc\u20ac\ud83d\ude01z"));
+        }
+        // A truncated sequence compares like the String it decodes to
+        JSONSource truncated = new JSONSource.Utf8(utf8, 0, 2);
+        assertTrue(truncated.contentEquals(0, 2, new String(utf8, 0, 2, StandardCharsets.UTF_8)));
+        assertFalse(truncated.contentEquals(0, 2, "a\u00fc"));
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class JSONStringCacheTest {
+
+    private static final String DOCUMENT = "[{\"status\":\"ok\",\"country\":\"DE\",\"text\":\"a somewhat longer text value\",\"esc\":\"\\u0041\"},"
+            + "{\"status\":\"ok\",\"country\":'DE',\"text\":\"a somewhat longer text value\",\"esc\":\"\\u0041\"},"
+            + "[\"ok\",\"\u00fcber\",\"\u00fcber\",\"\"]]";
+
+    @Test
+    public void testSharedValues() throws JSONException {
+        JSONParseOptions options = new JSONParseOptions().strings(new JSONStringCache(64, 8));
+        JSONArray expected = new JSONArray(DOCUMENT);
+        for (JSONArray array : new JSONArray[]{
+                (JSONArray) JSONElement.parse(DOCUMENT, options),
+                (JSONArray) JSONElement.parse(DOCUMENT.getBytes(StandardCharsets.UTF_8), options)}) {
+            assertEquals(expected, array);
+            assertEquals(expected.toString(), array.toString());
+
+            JSONObject first = array.getJSONObject(0);
+            JSONObject second = array.getJSONObject(1);
+            JSONArray list = array.getJSONArray(2);
+            assertSame(first.getString("status"), second.getString("status"));
+            assertSame(first.getString("status"), list.getString(0));
+            assertSame(first.getString("country"), second.getString("country"));
+            assertSame(list.getString(1), list.getString(2));
+            assertEquals("\u00fcber", list.getString(1));
+            assertEquals("", list.getString(3));
+
+            assertEquals(first.getString("text"), second.getString("text"));
+            assertNotSame(first.getString("text"), second.getString("text"));
+            assertEquals("A", first.getString("esc"));
+            assertNotSame(first.getString("esc"), second.getString("esc"));
+        }
+    }
+
+    @Test
+    public void testAcrossDocuments() throws JSONException {
+        JSONParseOptions options = new JSONParseOptions().strings(new JSONStringCache());
+        JSONObject first = (JSONObject) JSONElement.parse("{\"type\":\"click\"}", options);
+        JSONObject second = (JSONObject) JSONElement.parse("{\"kind\":\"click\"}".getBytes(StandardCharsets.UTF_8), options);
+        assertSame(first.getString("type"), second.getString("kind"));
+    }
+
+    @Test
+    public void testLengthInChars() throws JSONException {
+        // Four chars in five, eight and four bytes of UTF-8: all of them fit a cache of four
+        String document = "[\"\u00fcber\",\"\ud83d\ude00\ud83d\ude00\",\"abcd\",\"abcde\"]";
+        JSONParseOptions options = new JSONParseOptions().strings(new JSONStringCache(64, 4));
+        JSONArray chars = (JSONArray) JSONElement.parse(document, options);
+        JSONArray bytes = (JSONArray) JSONElement.parse(document.getBytes(StandardCharsets.UTF_8), options);
+        for (int i = 0; i < 3; i++) {
+            assertSame(chars.getString(i), bytes.getString(i));
+        }
+        assertEquals("\ud83d\ude00\ud83d\ude00", bytes.getString(1));
+        assertNotSame(chars.getString(3), bytes.getString(3));
+        assertEquals(chars.getString(3), bytes.getString(3));
+    }
+
+    @Test
+    public void testMalformedUtf8() throws JSONException {
+        JSONParseOptions options = new JSONParseOptions().strings(new JSONStringCache());
+        byte[] document = {'[', '"', 'a', (byte) 0xC3, '"', ',', '"', 'a', (byte) 0xC3, '"', ']'};
+        JSONArray array = (JSONArray) JSONElement.parse(document, options);
+        assertEquals(new String(document, 2, 2, StandardCharsets.UTF_8), array.getString(0));
+        assertEquals(array.getString(0), array.getString(1));
+    }
+
+    @Test
+    public void testCollisions() throws JSONException {
+        JSONParseOptions options = new JSONParseOptions().strings(new JSONStringCache(1, 32));
+        JSONArray array = (JSONArray) JSONElement.parse("[\"a\",\"b\",\"a\",\"b\"]", options);
+        assertEquals("[\"a\",\"b\",\"a\",\"b\"]", array.toString());
+        assertEquals("a", array.getString(2));
+        assertEquals("b", array.getString(3));
+        assertSame(array.getString(3), array.getString(3));
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class JSONStructuralIndexTest {
+
+    private static final JSONParseOptions INDEXED = new JSONParseOptions().indexed(true);
+
+    private static final String[] STRICT = {
+            "{}",
+            "[]",
+            "  \r\n\t{ }  ",
+            "{\"a\":1}",
+            "{\"a\" : -12.5e+3 , \"b\":[true,false,null],\"c\":{\"d\":\"e\"}}",
+            "[1,-0,0.5,1E5,2e-3,\"x\",{},[],[[]],{\"a\":[]}]",
+            "{\"escaped \\\"key\\\"\":\"va\\\\lue\\\\\",\"u\":\"\\u00e4\\n\\t\\/\"}",
+            "[\"\\\\\",\"\\\\\\\\\",\"\\\"\",\"a\\\\\\\"b\"]",
+            "{\"str\":\"{[,:]}\",\"n\":\"caf\u00e9 \u65e5\u672c\"}",
+            "[{\"a\":{\"b\":{\"c\":[1,2,{\"d\":null}]}}}]",
+            "{\"a\":1} trailing [",
+    };
+
+    private static final String[] FALLBACK = {
+            "{a:1}",
+            "{'a':'b'}",
+            "[True,FALSE,Null]",
+            "{\"a\":unquoted}",
+            "[+1]",
+            "[01]",
+            "[1.]",
+            "[1,]",
+            "{\"a\":1,}",
+            "[1 2]",
+            "{\"a\" 1}",
+            "[\"\\x\"]",
+            "{\"a\":[1}",
+            "[1,2",
+            "[\"open",
+            "x[1]",
+            "",
+            "   ",
+    };
+
+    private static JSONNode parse(String json) {
+        JSONParser parser = new JSONParser(json.getBytes(StandardCharsets.UTF_8), 0, json.getBytes(StandardCharsets.UTF_8).length);
+        parser.parse();
+        return parser.getRoot();
+    }
+
+    private static JSONNode index(byte[] utf8) {
+        JSONSource source = new JSONSource.Utf8(utf8, 0, utf8.length);
+        return JSONStructuralIndex.scan(source, ByteBuffer.wrap(utf8)).build();
+    }
+
+    private static void assertSameTree(JSONNode expected, JSONNode actual) {
+        assertEquals(expected.type, actual.type);
+        assertEquals(expected.startIndex, actual.startIndex);
+        assertEquals(expected.endIndex, actual.endIndex);
+        assertSame(expected.source.getClass(), actual.source.getClass());
+        JSONNode e = expected.child;
+        JSONNode a = actual.child;
+        while (e != null) {
+            assertNotNull(a);
+            assertSameTree(e, a);
+            e = e.next;
+            a = a.next;
+        }
+        assertNull(a);
+    }
+
+    @Test
+    public void testStrictDocuments() {
+        for (String json : STRICT) {
+            JSONNode tree = index(json.getBytes(StandardCharsets.UTF_8));
+            assertNotNull(json, tree);
+            assertSameTree(parse(json), tree);
+        }
+    }
+
+    @Test
+    public void testFallback() {
+        for (String json : FALLBACK) {
+            assertNull(json, index(json.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    public void testSameErrors() {
+        for (String json : FALLBACK) {
+            byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+            String expected = null;
+            try {
+                JSONParser parser = new JSONParser(utf8, 0, utf8.length);
+                parser.parse();
+            } catch (JSONException e) {
+                expected = e.getMessage();
+            }
+            try {
+                JSONParser parser = new JSONParser(utf8, 0, utf8.length);
+                parser.setOptions(INDEXED);
+                parser.parse();
+                assertNull(json, expected);
+            } catch (JSONException e) {
+                assertEquals(json, expected, e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testBlockBoundaries() {
+        // Strings, escapes and numbers crossing 64 byte blocks.
+        for (int padding = 0; padding < 130; padding++) {
+            StringBuilder json = new StringBuilder("{");
+            for (int i = 0; i < padding; i++) {
+                json.append(' ');
+            }
+            json.append("\"k\\\\\":\"");
+            for (int i = 0; i < padding % 70; i++) {
+                json.append(i % 7 == 0 ? "\\\"" : i % 5 == 0 ? "\\\\" : "x");
+            }
+            json.append("\",\"n\":[").append(padding).append(".25,{\"s\":\"]}\"}]}");
+            String text = json.toString();
+            byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+            JSONNode tree = index(utf8);
+            assertNotNull(text, tree);
+            assertSameTree(parse(text), tree);
+        }
+    }
+
+    @Test
+    public void testOffsetInput() {
+        byte[] utf8 = "xx[1,{\"a\":\"b\"}]yy".getBytes(StandardCharsets.UTF_8);
+        JSONArray array = (JSONArray) JSONElement.parse(utf8, 2, utf8.length - 4, INDEXED);
+        assertEquals(2, array.length());
+        assertEquals("b", array.getJSONObject(1).getString("a"));
+
+        ByteBuffer buffer = ByteBuffer.wrap(utf8, 2, utf8.length - 4);
+        array = (JSONArray) JSONElement.parse(buffer, INDEXED);
+        assertEquals(1, array.getInt(0));
+    }
+
+    @Test
+    public void testLargeDocument() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 40000; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i).append(",\"name\":\"n\\\"").append(i).append("\",\"v\":[").append(i * 0.5).append(",true]}");
+        }
+        json.append(']');
+        String text = json.toString();
+        JSONNode tree = index(text.getBytes(StandardCharsets.UTF_8));
+        assertNotNull(tree);
+        assertSameTree(parse(text), tree);
+
+        JSONArray array = (JSONArray) JSONElement.parse(text.getBytes(StandardCharsets.UTF_8), INDEXED);
+        assertEquals(40000, array.length());
+        assertEquals("n\"39999", array.getJSONObject(39999).getString("name"));
+
+        byte[] resource = Files.readAllBytes(Paths.get("src/test/resources/positive/objects/test.json"));
+        assertEquals(JSONElement.parse(resource), JSONElement.parse(resource, INDEXED));
+    }
+
+    @Test
+    public void testLenientInputParses() {
+        JSONObject object = (JSONObject) JSONElement.parse("{a:'b',c:True}".getBytes(StandardCharsets.UTF_8), INDEXED);
+        assertEquals("b", object.getString("a"));
+        assertEquals(true, object.getBoolean("c"));
+        try {
+            JSONElement.parse("{\"a\":[1}".getBytes(StandardCharsets.UTF_8), INDEXED);
+            fail();
+        } catch (JSONException ignored) {
+        }
+    }
+}
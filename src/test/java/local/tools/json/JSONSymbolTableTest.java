@@ -0,0 +1,133 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class JSONSymbolTableTest {
+
+    private static final String DOCUMENT = "[{\"id\":1,\"status\":\"ok\",'quoted':2,bare:3,\"esc\\u0061ped\":4,\"\u00e9t\u00e9\":5},"
+            + "{\"id\":2,\"status\":\"failed\",'quoted':6,bare:7,\"esc\\u0061ped\":8,\"\u00e9t\u00e9\":9}]";
+
+    @Test
+    public void testCanonicalKeys() throws JSONException {
+        JSONSymbolTable symbols = new JSONSymbolTable();
+        JSONParseOptions options = new JSONParseOptions().symbols(symbols);
+        JSONArray array = (JSONArray) JSONElement.parse(DOCUMENT, options);
+        JSONArray utf8 = (JSONArray) JSONElement.parse(DOCUMENT.getBytes(StandardCharsets.UTF_8), options);
+        JSONArray expected = new JSONArray(DOCUMENT);
+
+        assertEquals(4, symbols.size());
+        assertEquals("id", symbols.name(0));
+        assertEquals(1, symbols.id("status"));
+        assertEquals(-1, symbols.id("esc\\u0061ped"));
+
+        Iterator<String> first = array.getJSONObject(0).keys();
+        Iterator<String> second = utf8.getJSONObject(1).keys();
+        for (int i = 0; i < 4; i++) {
+            assertSame(first.next(), second.next());
+        }
+        assertEquals(first.next(), second.next());
+        assertEquals(first.next(), second.next());
+
+        assertEquals(expected.toString(), array.toString());
+        assertEquals(expected.toString(), utf8.toString());
+        assertEquals(expected, array);
+        for (JSONArray parsed : new JSONArray[]{array, utf8}) {
+            JSONObject object = parsed.getJSONObject(1);
+            assertEquals(2, object.getInt("id"));
+            assertEquals(2, object.getInt(new String("id")));
+            assertEquals(6, object.getInt("quoted"));
+            assertEquals(7, object.getInt("bare"));
+            assertEquals(9, object.getInt("\u00e9t\u00e9"));
+            assertEquals("failed", object.getString("status"));
+        }
+        assertEquals(expected.getJSONObject(0).keySet(), array.getJSONObject(0).keySet());
+    }
+
+    @Test
+    public void testLookupById() throws JSONException {
+        JSONSymbolTable symbols = new JSONSymbolTable(3);
+        JSONParseOptions options = new JSONParseOptions().symbols(symbols);
+        JSONObject first = (JSONObject) JSONElement.parse("{\"a\":1,\"b\":2}", options);
+        JSONObject second = (JSONObject) JSONElement.parse("{\"b\":3,\"c\":4,\"d\":5,\"a\":6}", options);
+
+        assertEquals(3, symbols.size());
+        assertEquals(-1, symbols.id("d"));
+        assertEquals(2, first.getInt(new String("b")));
+        assertEquals(6, second.getInt("a"));
+        assertEquals(5, second.getInt("d"));
+        assertFalse(first.has("c"));
+        assertFalse(second.has("e"));
+        second.put("e", 7);
+        assertEquals(7, second.getInt("e"));
+    }
+
+    @Test
+    public void testModification() throws JSONException {
+        JSONParseOptions options = new JSONParseOptions().symbols(new JSONSymbolTable());
+        JSONObject object = (JSONObject) JSONElement.parse("{\"a\":1,\"b\":2}", options);
+        object.put("a", "x");
+        object.put("c", 3);
+        object.remove("b");
+        assertEquals("{\"a\":\"x\",\"c\":3}", object.toString());
+    }
+
+    @Test
+    public void testCapacity() throws JSONException {
+        JSONSymbolTable symbols = new JSONSymbolTable(2);
+        JSONObject object = (JSONObject) JSONElement.parse("{\"a\":1,\"b\":2,\"c\":3}", new JSONParseOptions().symbols(symbols));
+        assertEquals(2, symbols.size());
+        assertEquals(3, object.getInt("c"));
+        JSONOptionNode unnamed = (JSONOptionNode) object.root.firstChild().next.next;
+        assertEquals(-1, unnamed.symbolId);
+        assertEquals("c", unnamed.getStringValue());
+
+        symbols = new JSONSymbolTable();
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < 1000; i++) {
+            builder.append(i == 0 ? "" : ",").append("\"k").append(i).append("\":").append(i);
+        }
+        object = (JSONObject) JSONElement.parse(builder.append('}'), new JSONParseOptions().symbols(symbols));
+        assertEquals(1000, symbols.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, symbols.id("k" + i));
+            assertEquals(i, object.getInt("k" + i));
+        }
+        // The names are kept by the table, not pooled with the literals of the code
+        JSONOptionNode first = (JSONOptionNode) object.root.firstChild();
+        assertEquals(0, first.symbolId);
+        assertSame(symbols.name(0), first.getStringValue());
+        assertNotSame("k0", first.getStringValue());
+    }
+}
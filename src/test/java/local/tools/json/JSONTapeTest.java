@@ -0,0 +1,192 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JSONTapeTest {
+
+    private static final JSONParseOptions COMPACT = new JSONParseOptions().compact(true);
+
+    private static final String DOCUMENT = "{\"name\":\"tape\",\"escaped\":\"a\\nb\",\"n\":[1,2.5,-3e2,true,false,null],"
+            + "\"nested\":{\"deep\":{\"deeper\":[[],{},[{\"x\":1}]]},\"empty\":{}},unquoted:value,\"last\":[\"s\"]}";
+
+    @Test
+    public void testSameAsTree() throws JSONException {
+        JSONObject expected = new JSONObject(DOCUMENT);
+        JSONElement[] compact = {
+                JSONElement.parse(DOCUMENT, COMPACT),
+                JSONElement.parse(DOCUMENT.toCharArray(), 0, DOCUMENT.length(), COMPACT),
+                JSONElement.parse(DOCUMENT.getBytes(StandardCharsets.UTF_8), COMPACT),
+                JSONElement.parse(ByteBuffer.wrap(DOCUMENT.getBytes(StandardCharsets.UTF_8)), COMPACT),
+        };
+        for (JSONElement element : compact) {
+            JSONObject object = (JSONObject) element;
+            assertEquals(expected, object);
+            assertEquals(expected.toString(), object.toString());
+            assertEquals("a\nb", object.getString("escaped"));
+            assertEquals(1, object.getJSONObject("nested").getJSONObject("deep").getJSONArray("deeper").getJSONArray(2).getJSONObject(0).getInt("x"));
+            assertEquals(6, object.getJSONArray("n").length());
+            assertEquals("value", object.getString("unquoted"));
+        }
+    }
+
+    @Test
+    public void testLazyExpansion() throws JSONException {
+        JSONObject object = (JSONObject) JSONElement.parse(DOCUMENT, COMPACT);
+        JSONOptionNode root = (JSONOptionNode) object.root;
+        assertNull(root.child);
+        assertNotNull(root.tape);
+
+        assertEquals("tape", object.getString("name"));
+        assertNull(root.tape);
+        JSONOptionNode nested = (JSONOptionNode) valueOf(root, "nested");
+        assertNull(nested.child);
+        assertNotNull(nested.tape);
+        // Empty containers have nothing to expand
+        JSONObject empty = object.getJSONObject("nested").getJSONObject("empty");
+        assertNull(((JSONOptionNode) empty.root).tape);
+        assertEquals(0, empty.length());
+
+        assertEquals(1, object.getJSONObject("nested").getJSONObject("deep").length());
+        assertNull(nested.tape);
+    }
+
+    @Test
+    public void testTapeSize() {
+        JSONOptionNode root = (JSONOptionNode) parseCompact("[1,{\"a\":[true]},\"b\"]");
+        // array, 1, object, field, array, true, "b"
+        assertEquals(7, root.tape.size());
+    }
+
+    @Test
+    public void testModify() throws JSONException {
+        JSONObject object = (JSONObject) JSONElement.parse(DOCUMENT, COMPACT);
+        object.put("added", 42);
+        object.remove("name");
+        object.getJSONObject("nested").put("flag", true);
+        object.getJSONArray("last").put("t");
+
+        JSONObject expected = new JSONObject(DOCUMENT);
+        expected.put("added", 42);
+        expected.remove("name");
+        expected.getJSONObject("nested").put("flag", true);
+        expected.getJSONArray("last").put("t");
+
+        assertEquals(expected.toString(), object.toString());
+        assertFalse(object.has("name"));
+        assertTrue(object.getJSONObject("nested").getBoolean("flag"));
+        assertEquals(2, object.getJSONArray("last").length());
+
+        JSONArray array = (JSONArray) JSONElement.parse("[[1],[2]]", COMPACT);
+        array.getJSONArray(1).put(0, 0);
+        assertEquals("[[1],[0,2]]", array.toString());
+    }
+
+    @Test
+    public void testKeys() throws JSONException {
+        JSONObject object = (JSONObject) JSONElement.parse("{\"a\":1,\"b\":{\"c\":2}}", COMPACT);
+        Iterator<String> keys = object.getJSONObject("b").keys();
+        assertEquals("c", keys.next());
+        assertFalse(keys.hasNext());
+        assertEquals(2, object.keySet().size());
+    }
+
+    private static JSONNode valueOf(JSONNode object, String key) {
+        for (JSONNode field = object.child; field != null; field = field.next) {
+            if (field.getStringValue().equals(key)) {
+                return field.child;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testDeepNesting() throws JSONException {
+        // Deeper than the initial stack, so frames and tape slots have to grow
+        String json = "{\"a\":" + "[".repeat(100) + "{\"b\":\"x\"}" + "]".repeat(100) + ",\"c\":1}";
+        JSONObject object = (JSONObject) JSONElement.parse(json, COMPACT);
+        assertEquals(new JSONObject(json), object);
+        assertEquals(json, object.toString());
+        assertEquals(1, object.getInt("c"));
+    }
+
+    @Test
+    public void testErrors() {
+        String[] documents = {"[1,]", "{\"a\" 1}", "[\"a\"", "{\"a\":[1}", "[1] x", "[tru]"};
+        for (String json : documents) {
+            JSONException expected = null;
+            try {
+                new JSONArray(json);
+            } catch (JSONException e) {
+                expected = e;
+            }
+            try {
+                JSONElement.parse(json, COMPACT);
+                assertNull(json, expected);
+            } catch (JSONException e) {
+                assertNotNull(json, expected);
+                assertEquals(json, expected.getPosition(), e.getPosition());
+            }
+        }
+    }
+
+    private static JSONNode parseCompact(String json) {
+        JSONParser parser = new JSONParser(json);
+        parser.setOptions(COMPACT);
+        parser.parse();
+        return parser.getRoot();
+    }
+
+    @Test
+    public void testOptions() throws JSONException {
+        JSONSymbolTable symbols = new JSONSymbolTable();
+        JSONStringCache strings = new JSONStringCache();
+        JSONParseOptions options = new JSONParseOptions().compact(true).symbols(symbols).strings(strings);
+        JSONArray array = (JSONArray) JSONElement.parse("[{\"id\":1,\"s\":\"ok\"},{\"id\":2,\"s\":\"ok\"}]", options);
+
+        assertSame(array.getJSONObject(0).keys().next(), array.getJSONObject(1).keys().next());
+        assertSame(array.getJSONObject(0).getString("s"), array.getJSONObject(1).getString("s"));
+        assertEquals(2, symbols.size());
+
+        try {
+            JSONElement.parse("{\"a\":[1,{b:2}]}", new JSONParseOptions().compact(true).strict(true));
+            fail();
+        } catch (JSONException e) {
+            assertEquals(9, e.getPosition());
+        }
+    }
+}
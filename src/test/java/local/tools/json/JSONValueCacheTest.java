@@ -0,0 +1,204 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JSONValueCacheTest {
+
+    private static final String DOCUMENT = "{\"name\":\"rule engine\", \"escaped\":\"tab\\there\", \"price\":12.5,"
+            + " \"count\":42, \"big\":123456789012345678901234, \"wide\":3000000000, \"none\":null,"
+            + " \"list\":[\"a\", 1.5, {\"deep\":\"value\"}]}";
+
+    private static final JSONParseOptions CACHED = new JSONParseOptions().cacheValues(1 << 20);
+
+    @Test
+    public void testSameValues() throws JSONException {
+        JSONObject expected = new JSONObject(DOCUMENT);
+        JSONObject[] parsed = {
+                (JSONObject) JSONElement.parse(DOCUMENT, CACHED),
+                (JSONObject) JSONElement.parse(DOCUMENT.getBytes(StandardCharsets.UTF_8), CACHED),
+                (JSONObject) JSONElement.parse(DOCUMENT, new JSONParseOptions().cacheValues(1 << 20).decodeNumbers(true)),
+        };
+        for (JSONObject object : parsed) {
+            for (int round = 0; round < 2; round++) {
+                assertEquals(expected.getString("name"), object.getString("name"));
+                assertEquals(expected.getString("escaped"), object.getString("escaped"));
+                assertEquals(expected.getDouble("price"), object.getDouble("price"), 0);
+                assertEquals(expected.get("price"), object.get("price"));
+                assertEquals(expected.getInt("count"), object.getInt("count"));
+                assertEquals(expected.getLong("count"), object.getLong("count"));
+                assertEquals(expected.getDouble("count"), object.getDouble("count"), 0);
+                assertEquals(expected.get("count"), object.get("count"));
+                assertEquals(expected.get("big"), object.get("big"));
+                assertEquals(expected.getDouble("big"), object.getDouble("big"), 0);
+                assertEquals(expected.getLong("wide"), object.getLong("wide"));
+                assertEquals(expected.getString("price"), object.getString("price"));
+                assertEquals(expected.getString("big"), object.getString("big"));
+                assertNull(object.getString("none"));
+                assertOutOfRange(object, "wide", false);
+                assertOutOfRange(object, "big", true);
+            }
+            assertEquals(expected, object);
+            assertEquals(expected.toString(), object.toString());
+        }
+    }
+
+    @Test
+    public void testCachedInstances() throws JSONException {
+        JSONObject object = (JSONObject) JSONElement.parse(DOCUMENT, CACHED);
+        assertSame(object.getString("name"), object.getString("name"));
+        assertSame(object.getString("escaped"), object.getString("escaped"));
+        assertSame(object.get("price"), object.get("price"));
+        assertSame(object.get("big"), object.get("big"));
+        assertTrue(object.get("big") instanceof BigInteger);
+        JSONArray list = object.getJSONArray("list");
+        assertSame(list.getString(0), list.getString(0));
+        assertSame(list.get(1), list.get(1));
+
+        JSONObject plain = new JSONObject(DOCUMENT);
+        assertNotSame(plain.getString("name"), plain.getString("name"));
+        assertFalse(plain.root.firstChild().child instanceof JSONOptionNode);
+    }
+
+    @Test
+    public void testNumberText() throws JSONException {
+        JSONObject object = (JSONObject) JSONElement.parse(DOCUMENT, CACHED);
+        JSONValueCache cache = object.root.firstChild().source.values;
+        assertSame(object.getString("count"), object.getString("count"));
+        long used = cache.used();
+        assertTrue(used > 0);
+        // Reading the number as well keeps both, within the same budget
+        assertSame(object.get("count"), object.get("count"));
+        assertSame(object.getString("count"), object.getString("count"));
+        assertEquals("42", object.getString("count"));
+        assertTrue(cache.used() > used);
+
+        assertSame(object.get("price"), object.get("price"));
+        assertSame(object.getString("price"), object.getString("price"));
+        assertEquals(12.5, object.get("price"));
+        assertEquals("12.5", object.getString("price"));
+
+        object.remove("count");
+        object.remove("price");
+        assertEquals(0, cache.used());
+    }
+
+    @Test
+    public void testBudget() throws JSONException {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < 100; i++) {
+            builder.append(i == 0 ? "" : ",").append("\"value number ").append(i).append('"');
+        }
+        String document = builder.append(']').toString();
+        JSONArray array = (JSONArray) JSONElement.parse(document, new JSONParseOptions().cacheValues(1000));
+        JSONValueCache cache = array.root.firstChild().source.values;
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 100; i++) {
+                assertEquals("value number " + i, array.getString(i));
+                assertTrue(cache.used() <= 1000);
+            }
+        }
+        int cached = 0;
+        for (JSONNode node = array.root.firstChild(); node != null; node = node.next) {
+            if (((JSONOptionNode) node).memo != null) {
+                cached++;
+            }
+        }
+        assertTrue(cached > 0 && cached < 100);
+
+        // A value over the whole budget is never cached
+        JSONArray large = (JSONArray) JSONElement.parse("[\"" + document.replace('"', 'x') + "\"]",
+                new JSONParseOptions().cacheValues(100));
+        assertNotSame(large.getString(0), large.getString(0));
+        assertEquals(0, large.root.firstChild().source.values.used());
+    }
+
+    @Test
+    public void testPutAndRemove() throws JSONException {
+        JSONObject object = (JSONObject) JSONElement.parse(DOCUMENT, CACHED);
+        JSONValueCache cache = object.root.firstChild().source.values;
+        object.getString("name");
+        object.getDouble("price");
+        object.getJSONArray("list").getJSONObject(2).getString("deep");
+        long used = cache.used();
+        assertTrue(used > 0);
+
+        object.put("name", "changed");
+        assertEquals("changed", object.getString("name"));
+        assertTrue(cache.used() < used);
+
+        object.put("price", 1.25);
+        assertEquals(1.25, object.getDouble("price"), 0);
+        assertEquals(1.25, object.get("price"));
+
+        object.remove("list");
+        assertEquals(0, cache.used());
+
+        JSONArray array = (JSONArray) JSONElement.parse("[\"first\", \"second\"]", CACHED);
+        cache = array.root.firstChild().source.values;
+        array.getString(0);
+        array.getString(1);
+        used = cache.used();
+        array.remove(0);
+        assertTrue(cache.used() < used);
+        assertEquals("second", array.getString(0));
+    }
+
+    @Test
+    public void testNegativeSize() {
+        try {
+            new JSONParseOptions().cacheValues(-1);
+            fail("Negative cache size");
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    private static void assertOutOfRange(JSONObject object, String key, boolean longToo) {
+        try {
+            object.getInt(key);
+            fail(key + " is out of the range of integer");
+        } catch (JSONException ignored) {
+        }
+        if (!longToo) {
+            return;
+        }
+        try {
+            object.getLong(key);
+            fail(key + " is out of the range of long");
+        } catch (JSONException ignored) {
+        }
+    }
+}
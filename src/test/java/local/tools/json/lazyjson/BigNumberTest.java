@@ -0,0 +1,127 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json.lazyjson;
+
+import local.tools.json.JSONArray;
+import local.tools.json.JSONElement;
+import local.tools.json.JSONException;
+import local.tools.json.JSONObject;
+import local.tools.json.JSONParseOptions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class BigNumberTest {
+
+    private static final String DOCUMENT = "{\"int\":2147483647, \"over\":2147483648, \"min\":-9223372036854775808,"
+            + " \"long\":9223372036854775808, \"id\":123456789012345678901234567890, \"price\":1.50,"
+            + " \"exp\":1e5, \"text\":\"12\", \"word\":\"abc\", \"none\":null, \"flag\":true}";
+
+    @Test
+    public void testIntegerRange() throws JSONException {
+        JSONObject[] parsed = {
+                new JSONObject(DOCUMENT),
+                (JSONObject) JSONElement.parse(DOCUMENT, new JSONParseOptions().decodeNumbers(true)),
+        };
+        for (JSONObject object : parsed) {
+            assertEquals(Integer.MAX_VALUE, object.getInt("int"));
+            assertEquals(2147483648L, object.getLong("over"));
+            assertEquals(Long.MIN_VALUE, object.getLong("min"));
+            assertEquals(12, object.getInt("text"));
+            assertThrows(object, "over", true);
+            assertThrows(object, "min", true);
+            assertThrows(object, "long", false);
+            assertThrows(object, "id", false);
+            assertThrows(object, "word", false);
+            assertEquals(7, object.optInt("over", 7));
+        }
+    }
+
+    @Test
+    public void testBigDecimal() throws JSONException {
+        JSONObject object = new JSONObject(DOCUMENT);
+        assertEquals(new BigDecimal("1.50"), object.getBigDecimal("price"));
+        assertEquals(new BigDecimal("1e5"), object.getBigDecimal("exp"));
+        assertEquals(new BigDecimal("123456789012345678901234567890"), object.getBigDecimal("id"));
+        assertEquals(new BigDecimal("-9223372036854775808"), object.getBigDecimal("min"));
+        assertEquals(new BigDecimal("12"), object.getBigDecimal("text"));
+        assertNull(object.optBigDecimal("word"));
+        assertNull(object.optBigDecimal("none"));
+        assertNull(object.optBigDecimal("missing"));
+        assertEquals(BigDecimal.ONE, object.optBigDecimal("flag", BigDecimal.ONE));
+        try {
+            object.getBigDecimal("word");
+            fail("'abc' is not a number");
+        } catch (JSONException ignored) {
+        }
+    }
+
+    @Test
+    public void testBigInteger() throws JSONException {
+        JSONObject object = new JSONObject(DOCUMENT);
+        assertEquals(new BigInteger("123456789012345678901234567890"), object.getBigInteger("id"));
+        assertEquals(new BigInteger("9223372036854775808"), object.getBigInteger("long"));
+        assertEquals(BigInteger.valueOf(100000), object.getBigInteger("exp"));
+        assertNull(object.optBigInteger("price"));
+        assertEquals(BigInteger.TEN, object.optBigInteger("none", BigInteger.TEN));
+
+        assertEquals(new BigInteger("123456789012345678901234567890"), object.get("id"));
+        assertEquals(Long.MIN_VALUE, object.get("min"));
+        assertEquals(2147483648L, object.get("over"));
+
+        JSONArray array = new JSONArray("[18446744073709551616, 1.25]");
+        assertEquals(new BigInteger("18446744073709551616"), array.getBigInteger(0));
+        assertEquals(new BigDecimal("1.25"), array.getBigDecimal(1));
+        assertEquals(new BigDecimal("1.25"), array.optBigDecimal(1));
+        assertNull(array.optBigInteger(2));
+    }
+
+    @Test
+    public void testBigIntegerEquality() throws JSONException {
+        assertEquals(new JSONArray("[18446744073709551616]"), new JSONArray("[18446744073709551616]"));
+        assertNotEquals(new JSONArray("[18446744073709551616]"), new JSONArray("[18446744073709551617]"));
+    }
+
+    private static void assertThrows(JSONObject object, String key, boolean longFits) {
+        try {
+            object.getInt(key);
+            fail(key + " is out of the range of integer");
+        } catch (JSONException ignored) {
+        }
+        if (longFits) {
+            return;
+        }
+        try {
+            object.getLong(key);
+            fail(key + " is out of the range of long");
+        } catch (JSONException ignored) {
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json.lazyjson;
+
+import local.tools.json.JSONArray;
+import local.tools.json.JSONElement;
+import local.tools.json.JSONException;
+import local.tools.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ByteInputTest {
+
+    @Test
+    public void testUtf8Object() throws JSONException {
+        byte[] bytes = "{\"name\":\"Jos\u00e9 \u4e2d\u6587\",\"age\":22,\"weight\":73.2,\"tags\":[\"a\\n\\u00e9\",\"\ud83d\ude00\"]}".getBytes(StandardCharsets.UTF_8);
+        JSONObject obj = new JSONObject(bytes);
+
+        assertEquals("Jos\u00e9 \u4e2d\u6587", obj.getString("name"));
+        assertEquals(22, obj.getInt("age"));
+        assertEquals(73.2, obj.getDouble("weight"), 0);
+        JSONArray tags = obj.getJSONArray("tags");
+        assertEquals("a\n\u00e9", tags.getString(0));
+        assertEquals("\ud83d\ude00", tags.getString(1));
+    }
+
+    @Test
+    public void testUtf8Keys() throws JSONException {
+        JSONObject obj = new JSONObject("{\"cl\u00e9\":1,\"\u00e9\":2,\"key\":3}".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(1, obj.getInt("cl\u00e9"));
+        assertEquals(2, obj.getInt("\u00e9"));
+        assertEquals(3, obj.getInt("key"));
+        assertTrue(!obj.has("cle"));
+        assertEquals("{\"cl\u00e9\":1,\"\u00e9\":2,\"key\":3}", obj.toString());
+    }
+
+    @Test
+    public void testUtf8Slice() throws JSONException {
+        byte[] bytes = "garbage[1,\"\u00fc\",{\"a\":true}]garbage".getBytes(StandardCharsets.UTF_8);
+        JSONElement element = JSONElement.parse(bytes, 7, bytes.length - 14);
+
+        assertTrue(element instanceof JSONArray);
+        JSONArray arr = (JSONArray) element;
+        assertEquals(3, arr.length());
+        assertEquals("\u00fc", arr.getString(1));
+        assertTrue(arr.getJSONObject(2).getBoolean("a"));
+    }
+
+    @Test
+    public void testUtf8SliceIsBounded() {
+        byte[] bytes = "{\"a\":\"bc\"}".getBytes(StandardCharsets.UTF_8);
+        try {
+            new JSONObject(bytes, 0, 7);
+            fail("Required exception wasn't thrown.");
+        } catch (JSONException e) {
+        }
+    }
+
+    @Test
+    public void testByteBuffer() throws JSONException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+        buffer.put("xx{\"a\":[1,2,3],\"b\":\"\u00e4\"}".getBytes(StandardCharsets.UTF_8));
+        buffer.flip();
+        buffer.position(2);
+        JSONObject obj = new JSONObject(buffer);
+
+        assertEquals(3, obj.getJSONArray("a").length());
+        assertEquals("\u00e4", obj.getString("b"));
+    }
+
+    @Test
+    public void testMappedFile(@TempDir Path dir) throws IOException, JSONException {
+        Path file = dir.resolve("data.json");
+        StringBuilder content = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            if (i > 0) {
+                content.append(',');
+            }
+            content.append("{\"id\":").append(i).append(",\"name\":\"n\u00e4me").append(i).append("\"}");
+        }
+        content.append("]");
+        Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+
+        JSONElement element = JSONElement.parse(file);
+        assertTrue(element instanceof JSONArray);
+        JSONArray arr = (JSONArray) element;
+        assertEquals(1000, arr.length());
+        assertEquals(999, arr.getJSONObject(999).getInt("id"));
+        assertEquals("n\u00e4me500", arr.getJSONObject(500).getString("name"));
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json.lazyjson;
+
+import local.tools.json.JSONArray;
+import local.tools.json.JSONElement;
+import local.tools.json.JSONException;
+import local.tools.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CharInputTest {
+
+    @Test
+    public void testCharArraySlice() throws JSONException {
+        char[] buffer = "####{\"foo\":\"bar\",\"baz\":[1,2,3]}####".toCharArray();
+        JSONObject obj = new JSONObject(buffer, 4, buffer.length - 8);
+
+        assertEquals("bar", obj.getString("foo"));
+        assertEquals(3, obj.getJSONArray("baz").length());
+    }
+
+    @Test
+    public void testCharArrayIsNotCopied() throws JSONException {
+        char[] buffer = "{\"foo\":\"bar\"}".toCharArray();
+        JSONObject obj = new JSONObject(buffer);
+        buffer[9] = 'u';
+
+        assertEquals("bur", obj.getString("foo"));
+    }
+
+    @Test
+    public void testCharArraySliceIsBounded() {
+        char[] buffer = "[\"abc\"]".toCharArray();
+        try {
+            new JSONArray(buffer, 0, 4);
+            fail("Required exception wasn't thrown.");
+        } catch (JSONException e) {
+        }
+    }
+
+    @Test
+    public void testCharSequence() throws JSONException {
+        StringBuilder builder = new StringBuilder("[{\"a\":\"x\\ty\"},42,true]");
+        JSONElement element = JSONElement.parse(builder);
+
+        assertTrue(element instanceof JSONArray);
+        JSONArray arr = (JSONArray) element;
+        assertEquals("x\ty", arr.getJSONObject(0).getString("a"));
+        assertEquals(42, arr.getInt(1));
+        assertTrue(arr.getBoolean(2));
+    }
+}
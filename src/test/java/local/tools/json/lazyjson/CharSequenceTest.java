@@ -0,0 +1,123 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json.lazyjson;
+
+import local.tools.json.JSONArray;
+import local.tools.json.JSONElement;
+import local.tools.json.JSONException;
+import local.tools.json.JSONObject;
+import local.tools.json.JSONParseOptions;
+import local.tools.json.JSONStringCache;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CharSequenceTest {
+
+    private static final String DOCUMENT = "{\"name\":\"lazy json\", \"escaped\":\"a\\tb\", \"text\":\"gr\u00fc\u00dfe\","
+            + " \"id\":12345, \"price\":-1.5e3, \"empty\":\"\", \"none\":null, \"list\":[\"x\", \"y\\\"z\"]}";
+
+    @Test
+    public void testViews() throws JSONException {
+        byte[] utf8 = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+        JSONElement[] parsed = {
+                JSONElement.parse(DOCUMENT),
+                JSONElement.parse(DOCUMENT.toCharArray(), 0, DOCUMENT.length()),
+                JSONElement.parse(utf8),
+                JSONElement.parse(ByteBuffer.wrap(utf8)),
+                JSONElement.parse(DOCUMENT, new JSONParseOptions().strings(new JSONStringCache())),
+        };
+        for (JSONElement element : parsed) {
+            JSONObject object = (JSONObject) element;
+            assertContent("lazy json", object.getCharSequence("name"));
+            assertContent("a\tb", object.getCharSequence("escaped"));
+            assertContent("gr\u00fc\u00dfe", object.getCharSequence("text"));
+            assertContent("12345", object.getCharSequence("id"));
+            assertContent("-1.5e3", object.getCharSequence("price"));
+            assertContent("", object.getCharSequence("empty"));
+            assertNull(object.getCharSequence("none"));
+            JSONArray list = object.getJSONArray("list");
+            assertContent("x", list.getCharSequence(0));
+            assertContent("y\"z", list.getCharSequence(1));
+
+            assertTrue(object.contentEquals("name", new StringBuilder("lazy json")));
+            assertFalse(object.contentEquals("name", "lazy jso"));
+            assertFalse(object.contentEquals("name", "lazy jsoN"));
+            assertTrue(object.contentEquals("escaped", "a\tb"));
+            assertTrue(object.contentEquals("text", "gr\u00fc\u00dfe"));
+            assertFalse(object.contentEquals("text", "gr\u00fc\u00dfen"));
+            assertTrue(object.contentEquals("id", "12345"));
+            assertTrue(object.contentEquals("none", null));
+            assertFalse(object.contentEquals("name", null));
+            assertFalse(object.contentEquals("missing", "lazy json"));
+            assertTrue(list.contentEquals(1, "y\"z"));
+            assertFalse(list.contentEquals(5, "x"));
+        }
+    }
+
+    @Test
+    public void testSubSequence() throws JSONException {
+        CharSequence value = new JSONObject(DOCUMENT).getCharSequence("name");
+        assertEquals("json", value.subSequence(5, 9).toString());
+        assertEquals('s', value.subSequence(5, 9).charAt(1));
+        assertEquals(0, value.subSequence(9, 9).length());
+        try {
+            value.charAt(9);
+            fail("Index 9 is out of the view");
+        } catch (IndexOutOfBoundsException ignored) {
+        }
+        try {
+            value.subSequence(4, 10);
+            fail("Range [4, 10) is out of the view");
+        } catch (IndexOutOfBoundsException ignored) {
+        }
+    }
+
+    @Test
+    public void testModified() throws JSONException {
+        JSONObject object = new JSONObject(DOCUMENT);
+        object.put("name", "changed");
+        object.put("escaped", "tab\there");
+        assertContent("changed", object.getCharSequence("name"));
+        assertContent("tab\there", object.getCharSequence("escaped"));
+        assertTrue(object.contentEquals("name", "changed"));
+        assertTrue(object.contentEquals("escaped", "tab\there"));
+    }
+
+    private static void assertContent(String expected, CharSequence actual) {
+        assertEquals(expected, actual.toString());
+        assertEquals(expected.length(), actual.length());
+        for (int i = 0; i < expected.length(); i++) {
+            assertEquals(expected.charAt(i), actual.charAt(i));
+        }
+        assertTrue(expected.contentEquals(actual));
+    }
+}
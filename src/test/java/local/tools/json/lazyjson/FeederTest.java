@@ -0,0 +1,161 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json.lazyjson;
+
+import local.tools.json.JSONArray;
+import local.tools.json.JSONElement;
+import local.tools.json.JSONException;
+import local.tools.json.JSONFeeder;
+import local.tools.json.JSONObject;
+import local.tools.json.JSONParseOptions;
+import local.tools.json.JSONSymbolTable;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FeederTest {
+
+    private static final String DOCUMENT = "{\"name\" : \"J\u00f6rg \\\"\u4e2d\\\"\", \"age\":22, 'size':-1.5e3, \"ok\":true, \"none\" : null,"
+            + " \"list\":[1, 22, 333, \"x\\u0041y\", [], {}, unquoted], key:value, \"nested\":{\"a\":{\"b\":[false]}}}  ";
+
+    @Test
+    public void testEveryFragmentSize() throws JSONException {
+        byte[] bytes = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+        JSONObject expected = new JSONObject(DOCUMENT);
+        for (int size = 1; size <= bytes.length; size++) {
+            JSONFeeder feeder = new JSONFeeder();
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            for (int offset = 0; offset < bytes.length; offset += size) {
+                buffer.clear();
+                buffer.put(bytes, offset, Math.min(size, bytes.length - offset));
+                buffer.flip();
+                feeder.feed(buffer);
+                assertFalse(buffer.hasRemaining());
+            }
+            JSONElement element = feeder.endOfInput();
+            assertTrue(element instanceof JSONObject);
+            JSONObject obj = (JSONObject) element;
+            assertEquals(expected, obj);
+            assertEquals("J\u00f6rg \"\u4e2d\"", obj.getString("name"));
+            assertEquals(-1500.0, obj.getDouble("size"), 0);
+            assertEquals("xAy", obj.getJSONArray("list").getString(3));
+            assertEquals("value", obj.getString("key"));
+            assertFalse(obj.getJSONObject("nested").getJSONObject("a").getJSONArray("b").getBoolean(0));
+        }
+    }
+
+    @Test
+    public void testCompleteBeforeEndOfInput() throws JSONException {
+        JSONFeeder feeder = new JSONFeeder();
+        assertFalse(feeder.feed("[1,2".getBytes(StandardCharsets.UTF_8), 0, 4));
+        assertFalse(feeder.isComplete());
+        assertTrue(feeder.feed(",3]".getBytes(StandardCharsets.UTF_8), 0, 3));
+        assertTrue(feeder.isComplete());
+        JSONArray arr = (JSONArray) feeder.getElement();
+        assertEquals(3, arr.length());
+        assertEquals(3, arr.getInt(2));
+    }
+
+    @Test
+    public void testTruncatedInput() {
+        JSONFeeder feeder = new JSONFeeder();
+        feeder.feed("{\"foo\":[1,2".getBytes(StandardCharsets.UTF_8), 0, 11);
+        try {
+            feeder.endOfInput();
+            fail("Required exception wasn't thrown.");
+        } catch (JSONException e) {
+        }
+    }
+
+    @Test
+    public void testMalformedInputFailsEarly() {
+        JSONFeeder feeder = new JSONFeeder();
+        try {
+            feeder.feed("{\"foo\":42,}".getBytes(StandardCharsets.UTF_8), 0, 11);
+            fail("Required exception wasn't thrown.");
+        } catch (JSONException e) {
+        }
+    }
+
+    @Test
+    public void testOptions() throws JSONException {
+        JSONFeeder feeder = new JSONFeeder(new JSONParseOptions().strict(true));
+        feeder.feed("{\"a\":1,".getBytes(StandardCharsets.UTF_8), 0, 7);
+        try {
+            feeder.feed("b:2}".getBytes(StandardCharsets.UTF_8), 0, 4);
+            fail("Required exception wasn't thrown.");
+        } catch (JSONException e) {
+            assertEquals(7, e.getPosition());
+        }
+
+        // Keywords split between fragments are read again once complete
+        feeder = new JSONFeeder(new JSONParseOptions().strict(true));
+        byte[] split = "{\"a\":true,\"b\":[false,null]}".getBytes(StandardCharsets.UTF_8);
+        for (byte b : split) {
+            feeder.feed(new byte[]{b}, 0, 1);
+        }
+        JSONObject object = (JSONObject) feeder.endOfInput();
+        assertTrue(object.getBoolean("a"));
+        assertTrue(object.getJSONArray("b").isNull(1));
+
+        // Only white space may follow the document, also when it arrives later
+        feeder = new JSONFeeder(new JSONParseOptions().strict(true));
+        assertTrue(feeder.feed("{\"a\":1} ".getBytes(StandardCharsets.UTF_8), 0, 8));
+        feeder.feed(" \n".getBytes(StandardCharsets.UTF_8), 0, 2);
+        assertEquals(1, ((JSONObject) feeder.endOfInput()).getInt("a"));
+        feeder = new JSONFeeder(new JSONParseOptions().strict(true));
+        assertTrue(feeder.feed("{\"a\":1} ".getBytes(StandardCharsets.UTF_8), 0, 8));
+        try {
+            feeder.feed("garbage".getBytes(StandardCharsets.UTF_8), 0, 7);
+            fail("Required exception wasn't thrown.");
+        } catch (JSONException e) {
+            assertEquals(8, e.getPosition());
+        }
+        feeder = new JSONFeeder(new JSONParseOptions().strict(true));
+        try {
+            feeder.feed("{\"a\":1} garbage".getBytes(StandardCharsets.UTF_8), 0, 15);
+            fail("Required exception wasn't thrown.");
+        } catch (JSONException e) {
+            assertEquals(8, e.getPosition());
+        }
+
+        JSONSymbolTable symbols = new JSONSymbolTable();
+        feeder = new JSONFeeder(new JSONParseOptions().symbols(symbols));
+        feeder.feed("{\"id\":1}".getBytes(StandardCharsets.UTF_8), 0, 8);
+        assertEquals(1, ((JSONObject) feeder.endOfInput()).getInt("id"));
+        assertEquals(0, symbols.id("id"));
+
+        try {
+            new JSONFeeder(new JSONParseOptions().compact(true));
+            fail("Required exception wasn't thrown.");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
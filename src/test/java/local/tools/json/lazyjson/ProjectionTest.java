@@ -0,0 +1,137 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json.lazyjson;
+
+import local.tools.json.JSONArray;
+import local.tools.json.JSONElement;
+import local.tools.json.JSONException;
+import local.tools.json.JSONObject;
+import local.tools.json.JSONParseOptions;
+import local.tools.json.JSONPaths;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ProjectionTest {
+
+    private static final String DOCUMENT = "{\"id\":17, \"meta\" : {\"ts\":1700000000,\"source\":{\"a\":[1,2]}, 'tags':['x']},"
+            + " \"items\":[{\"price\":1.5,\"name\":\"a\\\"]\"},{\"name\":\"b\"},{\"price\":-2e3,\"extra\":[[{}]]}],"
+            + " unquoted:value, \"big\":{\"deep\":[[[\"}\"]]]}, 'single':'s\\\"', \"esc\\u0061ped\":true, \"last\":null}";
+
+    @Test
+    public void testProjection() throws JSONException {
+        JSONPaths paths = JSONPaths.compile("id", "meta.ts", "items[*].price");
+        JSONElement[] projected = {
+                JSONElement.parse(DOCUMENT, new JSONParseOptions().paths(paths)),
+                JSONElement.parse(DOCUMENT.toCharArray(), 0, DOCUMENT.length(), new JSONParseOptions().paths(paths)),
+                JSONElement.parse(DOCUMENT.getBytes(StandardCharsets.UTF_8), new JSONParseOptions().paths(paths)),
+                JSONElement.parse(ByteBuffer.wrap(DOCUMENT.getBytes(StandardCharsets.UTF_8)), new JSONParseOptions().paths(paths)),
+        };
+        for (JSONElement element : projected) {
+            assertEquals("{\"id\":17,\"meta\":{\"ts\":1700000000},\"items\":[{\"price\":1.5},{},{\"price\":-2e3}]}", element.toString());
+        }
+        JSONObject object = (JSONObject) projected[0];
+        assertEquals(17, object.getInt("id"));
+        assertEquals(1700000000, object.getJSONObject("meta").getLong("ts"));
+        assertEquals(-2000.0, object.getJSONArray("items").getJSONObject(2).getDouble("price"), 0);
+        assertFalse(object.has("big"));
+        assertFalse(object.getJSONObject("meta").has("source"));
+    }
+
+    @Test
+    public void testWholeSubtrees() throws JSONException {
+        JSONObject object = (JSONObject) JSONElement.parse(DOCUMENT, new JSONParseOptions().paths(JSONPaths.compile("meta.source", "big", "unquoted", "single", "last")));
+        assertEquals("{\"meta\":{\"source\":{\"a\":[1,2]}},\"unquoted\":\"value\",\"big\":{\"deep\":[[[\"}\"]]]},\"single\":\"s\\\"\",\"last\":null}", object.toString());
+
+        object = (JSONObject) JSONElement.parse(DOCUMENT, new JSONParseOptions().paths(JSONPaths.compile("meta", "meta.ts", "items[*]")));
+        JSONObject expected = new JSONObject(DOCUMENT);
+        assertEquals(expected.getJSONObject("meta"), object.getJSONObject("meta"));
+        assertEquals(expected.getJSONArray("items"), object.getJSONArray("items"));
+        assertEquals(2, object.length());
+    }
+
+    @Test
+    public void testArrays() throws JSONException {
+        JSONArray array = (JSONArray) JSONElement.parse("[{\"id\":1,\"x\":[1]},{\"id\":2},3,\"s\",[4]]", new JSONParseOptions().paths(JSONPaths.compile("[*].id")));
+        assertEquals("[{\"id\":1},{\"id\":2},3,\"s\",[]]", array.toString());
+
+        JSONObject object = (JSONObject) JSONElement.parse("{\"a\":[1,{\"b\":2}],\"c\":1}", new JSONParseOptions().paths(JSONPaths.compile("a.b")));
+        assertEquals("{\"a\":[]}", object.toString());
+    }
+
+    @Test
+    public void testNothingSelected() throws JSONException {
+        JSONObject object = (JSONObject) JSONElement.parse(DOCUMENT, new JSONParseOptions().paths(JSONPaths.compile("missing")));
+        assertEquals(0, object.length());
+        assertEquals("{}", object.toString());
+    }
+
+    @Test
+    public void testErrorsInSkippedValues() {
+        String[] invalid = {"{\"a\":1,\"b\" 2}", "{\"b\":[1,2}", "{\"b\":\"\\x\"}", "{\"b\":-}", "{\"b\":1", "{\"b\":#}"};
+        for (String json : invalid) {
+            try {
+                JSONElement.parse(json, new JSONParseOptions().paths(JSONPaths.compile("a")));
+                fail(json);
+            } catch (JSONException ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void testStrictSkippedValues() throws JSONException {
+        JSONParseOptions options = new JSONParseOptions().strict(true).paths(JSONPaths.compile("a"));
+        String[] invalid = {"{\"a\":1,\"b\":[1,,2]}", "{\"a\":1,\"b\":{\"x\":'s'}}", "{\"a\":1,\"b\":{x:1}}",
+                "{\"a\":1,\"b\":tru}", "{\"a\":1,\"b\":[nul]}", "{\"a\":1,\"b\":+1}", "{\"a\":1,\"b\":value}",
+                "{\"a\":1,\"b\":[\"\t\"]}", "{\"a\":1,\"b\":[1,2}", "{\"a\":1,\"b\":{\"x\":[]]}"};
+        for (String json : invalid) {
+            try {
+                JSONElement.parse(json, options);
+                fail(json);
+            } catch (JSONException ignored) {
+            }
+        }
+        JSONObject object = (JSONObject) JSONElement.parse("{\"b\":{\"x\":[true,null,\"}\",-1.5e3,{}]},\"a\":2,\"c\":false}", options);
+        assertEquals("{\"a\":2}", object.toString());
+    }
+
+    @Test
+    public void testInvalidPaths() {
+        String[] invalid = {"a..b", "a.", ".a", "a[0]", "a[*]b", "[x]"};
+        for (String path : invalid) {
+            try {
+                JSONPaths.compile(path);
+                fail(path);
+            } catch (JSONException ignored) {
+            }
+        }
+        assertTrue(JSONPaths.compile("a[*][*].b", "[*]") != null);
+    }
+}
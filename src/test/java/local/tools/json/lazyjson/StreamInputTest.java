@@ -0,0 +1,203 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json.lazyjson;
+
+import local.tools.json.JSONArray;
+import local.tools.json.JSONElement;
+import local.tools.json.JSONException;
+import local.tools.json.JSONObject;
+import local.tools.json.JSONParseOptions;
+import local.tools.json.JSONPaths;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StreamInputTest {
+
+    private static String createLargeArray(int count) {
+        StringBuilder content = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                content.append(",\n");
+            }
+            content.append("{\"id\":").append(i).append(",\"name\":\"\u00fcser \u4e2d").append(i).append("\",\"tags\":[\"a\\nb\",null,true]}");
+        }
+        content.append("]");
+        return content.toString();
+    }
+
+    @Test
+    public void testReader() throws JSONException {
+        String source = createLargeArray(5000);
+        // Hand out a few characters per read to exercise partially filled chunks.
+        Reader reader = new FilterReader(new StringReader(source)) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 7));
+            }
+        };
+        JSONArray arr = new JSONArray(reader);
+
+        assertEquals(5000, arr.length());
+        for (int i = 0; i < 5000; i++) {
+            JSONObject obj = arr.getJSONObject(i);
+            assertEquals(i, obj.getInt("id"));
+            assertEquals("\u00fcser \u4e2d" + i, obj.getString("name"));
+            assertEquals("a\nb", obj.getJSONArray("tags").getString(0));
+        }
+        assertEquals(new JSONArray(source), arr);
+    }
+
+    @Test
+    public void testInputStream() throws JSONException {
+        String source = createLargeArray(5000);
+        InputStream stream = new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8));
+        JSONElement element = JSONElement.parse(stream);
+
+        assertTrue(element instanceof JSONArray);
+        JSONArray arr = (JSONArray) element;
+        assertEquals(5000, arr.length());
+        for (int i = 0; i < 5000; i++) {
+            assertEquals("\u00fcser \u4e2d" + i, arr.getJSONObject(i).getString("name"));
+        }
+    }
+
+    @Test
+    public void testTruncatedStream() {
+        try {
+            new JSONObject(new StringReader("{\"foo\":[1,2,"));
+            fail("Required exception wasn't thrown.");
+        } catch (JSONException e) {
+        }
+    }
+
+    @Test
+    public void testFailingStream() {
+        InputStream stream = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+        try {
+            new JSONObject(stream);
+            fail("Required exception wasn't thrown.");
+        } catch (JSONException e) {
+            assertEquals("Connection reset", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testOptions() throws JSONException, IOException {
+        String lenient = "{\"a\":[1,2],b:{\"c\":true}}";
+        JSONParseOptions strict = new JSONParseOptions().strict(true);
+        JSONParseOptions projected = new JSONParseOptions().paths(JSONPaths.compile("b.c"));
+        try {
+            JSONElement.parse(new StringReader(lenient), strict);
+            fail("Required exception wasn't thrown.");
+        } catch (JSONException e) {
+            assertEquals(11, e.getPosition());
+        }
+        try {
+            JSONElement.parse(new ByteArrayInputStream(lenient.getBytes(StandardCharsets.UTF_8)), strict);
+            fail("Required exception wasn't thrown.");
+        } catch (JSONException e) {
+            assertEquals(11, e.getPosition());
+        }
+        JSONObject object = (JSONObject) JSONElement.parse(new StringReader(lenient), projected);
+        assertEquals("{\"b\":{\"c\":true}}", object.toString());
+
+        Path file = Files.createTempFile("options", ".json");
+        try {
+            Files.write(file, lenient.getBytes(StandardCharsets.UTF_8));
+            object = (JSONObject) JSONElement.parse(file, projected);
+            assertEquals("{\"b\":{\"c\":true}}", object.toString());
+            try {
+                JSONElement.parse(file, strict);
+                fail("Required exception wasn't thrown.");
+            } catch (JSONException e) {
+                assertEquals(11, e.getPosition());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // Hands out one character or byte per read, so every token spans reads
+    private static Reader slowReader(String source) {
+        return new FilterReader(new StringReader(source)) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 1));
+            }
+        };
+    }
+
+    private static InputStream slowStream(String source) {
+        return new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] buffer, int offset, int length) {
+                return super.read(buffer, offset, Math.min(length, 1));
+            }
+        };
+    }
+
+    @Test
+    public void testStrict() throws JSONException {
+        JSONParseOptions strict = new JSONParseOptions().strict(true);
+        String[] valid = {"{\"a\":1}", "[true,false,null]", " {\"a\":[1.5,\"x\"]} \n\t"};
+        for (String json : valid) {
+            JSONElement expected = JSONElement.parse(json);
+            assertEquals(expected, JSONElement.parse(new StringReader(json), strict));
+            assertEquals(expected, JSONElement.parse(slowReader(json), strict));
+            assertEquals(expected, JSONElement.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), strict));
+            assertEquals(expected, JSONElement.parse(slowStream(json), strict));
+        }
+        String trailing = "{\"a\":1} x";
+        for (int i = 0; i < 2; i++) {
+            try {
+                if (i == 0) {
+                    JSONElement.parse(slowReader(trailing), strict);
+                } else {
+                    JSONElement.parse(slowStream(trailing), strict);
+                }
+                fail("Required exception wasn't thrown.");
+            } catch (JSONException e) {
+                assertEquals(8, e.getPosition());
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json.lazyjson;
+
+import local.tools.json.JSONArray;
+import local.tools.json.JSONElement;
+import local.tools.json.JSONException;
+import local.tools.json.JSONObject;
+import local.tools.json.JSONParseOptions;
+import local.tools.json.JSONReusableParser;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StrictParseTest {
+
+    private static final JSONParseOptions STRICT = new JSONParseOptions().strict(true);
+
+    private static final String DOCUMENT = "{\"id\":-17, \"price\" : 1.5e3, \"tags\":[\"a\",\"b\\\"\"], \"ok\":true,"
+            + " \"nested\":{\"none\":null,\"no\":false,\"list\":[true,false,null,-0.5,{}]}} \n";
+
+    @Test
+    public void testStrictDocument() throws JSONException {
+        JSONElement[] parsed = {
+                JSONElement.parse(DOCUMENT, STRICT),
+                JSONElement.parse(DOCUMENT.toCharArray(), 0, DOCUMENT.length(), STRICT),
+                JSONElement.parse(DOCUMENT.getBytes(StandardCharsets.UTF_8), STRICT),
+                JSONElement.parse(ByteBuffer.wrap(DOCUMENT.getBytes(StandardCharsets.UTF_8)), STRICT),
+                new JSONReusableParser(STRICT).parse(DOCUMENT),
+        };
+        JSONObject expected = new JSONObject(DOCUMENT);
+        for (JSONElement element : parsed) {
+            assertEquals(expected, element);
+            assertEquals(expected.toString(), element.toString());
+        }
+        JSONObject object = (JSONObject) parsed[0];
+        assertEquals(-17, object.getInt("id"));
+        assertTrue(object.getBoolean("ok"));
+        assertTrue(object.getJSONObject("nested").isNull("none"));
+        JSONArray list = object.getJSONObject("nested").getJSONArray("list");
+        assertEquals(-0.5, list.getDouble(3), 0);
+    }
+
+    @Test
+    public void testLenientSyntaxIsRejected() {
+        String[] documents = {
+                "{'id':1}",
+                "{id:1}",
+                "{\"id\":'a'}",
+                "{\"id\":abc}",
+                "{\"id\":+1}",
+                "{\"id\":Null}",
+                "{\"id\":True}",
+                "{\"id\":nul}",
+                "{\"id\":nulls}",
+                "['a']",
+                "[abc]",
+                "[+1]",
+                "[FALSE]",
+                "[tru",
+                "[1] x",
+                "{} {}",
+        };
+        for (String document : documents) {
+            try {
+                JSONElement.parse(document, STRICT);
+                fail("Strict parse accepted " + document);
+            } catch (JSONException expected) {
+            }
+            try {
+                JSONElement.parse(document.getBytes(StandardCharsets.UTF_8), STRICT);
+                fail("Strict parse accepted " + document);
+            } catch (JSONException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testStringContentIsChecked() throws JSONException {
+        String[] documents = {
+                "[\"a" + (char) 1 + "b\"]",
+                "[\"tab\there\"]",
+                "{\"line\nbreak\":1}",
+                "[\"\\u" + (char) 0 + "\"]",
+                "[\"\\uZZZZ\"]",
+                "[\"\\u12G4\"]",
+                "[\"\\u12\"]",
+                "{\"\\u00e\":1}",
+        };
+        for (String document : documents) {
+            try {
+                JSONElement.parse(document, STRICT);
+                fail("Strict parse accepted " + document);
+            } catch (JSONException expected) {
+            }
+            try {
+                JSONElement.parse(document.getBytes(StandardCharsets.UTF_8), STRICT);
+                fail("Strict parse accepted " + document);
+            } catch (JSONException expected) {
+            }
+            assertTrue(document, JSONElement.validate(document, STRICT) >= 0);
+        }
+        assertEquals(3, JSONElement.validate("[\"a" + (char) 31 + "\"]", STRICT));
+        assertEquals(6, JSONElement.validate("[\"\\u00Z0\"]", STRICT));
+
+        // Escaped controls, \\u escapes in any case and non-ASCII text are fine
+        String valid = "[\"a\\tb\\u0001\\u00e9\\u20AC\u00fc\", \"\\uD83D\\uDE00\"]";
+        JSONArray array = (JSONArray) JSONElement.parse(valid, STRICT);
+        assertEquals("a\tb\u0001\u00e9\u20ac\u00fc", array.getString(0));
+        assertEquals("\ud83d\ude00", array.getString(1));
+        assertEquals(array, JSONElement.parse(valid.getBytes(StandardCharsets.UTF_8), STRICT));
+
+        // The lenient parser keeps accepting raw control characters
+        assertEquals("tab\there", ((JSONArray) JSONElement.parse("[\"tab\there\"]")).getString(0));
+    }
+
+    @Test
+    public void testLenientByDefault() throws JSONException {
+        JSONObject object = (JSONObject) JSONElement.parse("{'a':'x', b:Null, d:True}", new JSONParseOptions());
+        assertEquals("x", object.getString("a"));
+        assertTrue(object.isNull("b"));
+        assertTrue(object.getBoolean("d"));
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json.lazyjson;
+
+import local.tools.json.JSONArray;
+import local.tools.json.JSONElement;
+import local.tools.json.JSONException;
+import local.tools.json.JSONParseOptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class UnescapeTest {
+
+    private static final String DOCUMENT = "[\"plain\", \"a\\\"b\\\\c\\/d\\be\\ff\\ng\\rh\\ti\","
+            + " \"\\u0041\\u00e9\\u20AC\", \"smile \\uD83D\\uDE00!\", \"\u00fcber \\n \u20ac\\t\u00df\","
+            + " \"\\\\\", \"\", \"\\u004a\\u004B\"]";
+
+    private static final String[] EXPECTED = {
+            "plain", "a\"b\\c/d\be\ff\ng\rh\ti", "A\u00e9\u20ac", "smile \ud83d\ude00!", "\u00fcber \n \u20ac\t\u00df",
+            "\\", "", "JK",
+    };
+
+    @Test
+    public void testAllSources() throws JSONException {
+        byte[] utf8 = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(utf8.length);
+        direct.put(utf8).flip();
+        JSONElement[] parsed = {
+                JSONElement.parse(DOCUMENT),
+                JSONElement.parse(new StringBuilder(DOCUMENT)),
+                JSONElement.parse(DOCUMENT.toCharArray(), 0, DOCUMENT.length()),
+                JSONElement.parse(utf8),
+                JSONElement.parse(direct),
+                JSONElement.parse(new StringReader(DOCUMENT)),
+                JSONElement.parse(new ByteArrayInputStream(utf8)),
+                JSONElement.parse(utf8, new JSONParseOptions().indexed(true)),
+        };
+        for (JSONElement element : parsed) {
+            JSONArray array = (JSONArray) element;
+            assertEquals(EXPECTED.length, array.length());
+            for (int i = 0; i < EXPECTED.length; i++) {
+                assertEquals(EXPECTED[i], array.getString(i));
+            }
+        }
+    }
+
+    @Test
+    public void testModifiedArray() throws JSONException {
+        JSONArray array = new JSONArray("[\"x\\ty\"]");
+        array.put("tab\there \"quoted\" \\ back");
+        assertEquals("x\ty", array.getString(0));
+        assertEquals("tab\there \"quoted\" \\ back", array.getString(1));
+        assertEquals("tab\there \"quoted\" \\ back", new JSONArray(array.toString()).getString(1));
+    }
+
+    @Test
+    public void testInvalidUnicode() {
+        String[] documents = {"[\"\\u12G4\"]", "[\"\\u00\"]", "[\"\\u-001\"]"};
+        for (String document : documents) {
+            try {
+                JSONArray array = new JSONArray(document);
+                array.getString(0);
+                fail(document);
+            } catch (JSONException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2023 Alexander Perfilev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package local.tools.json.lazyjson;
+
+import local.tools.json.JSONElement;
+import local.tools.json.JSONException;
+import local.tools.json.JSONParseOptions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ValidationTest {
+
+    private static final String[] DOCUMENTS = {
+            "{}", "[]", " [ ] ", "{\"a\":1}", "[1,2.5,-3e2,\"x\",true,false,null]",
+            "{\"a\":{\"b\":[{},[],[[]],{\"c\":\"\\\"}\"}]}}", "{'a':'b', c:d, \"e\":+1, f:Null}",
+            "[\u00e9]", "{\"\u00e9\":\"\u00fc\"}", "[1] trailing",
+            "", "  ", "x", "{", "[", "{\"a\"", "{\"a\":", "{\"a\":1", "{\"a\":1,}", "[1,]", "[,1]",
+            "{,}", "[1 2]", "{\"a\" 1}", "{\"a\":1 \"b\":2}", "[}", "{]", "[[]", "[]]", "{\"a\":[}",
+            "[01]", "[1.]", "[-]", "[1e]", "[\"abc]", "[\"\\x\"]", "{\"a\":1}}", "[:]", "{:1}",
+    };
+
+    @Test
+    public void testValidationMatchesParse() {
+        for (String document : DOCUMENTS) {
+            int expected = parse(document);
+            assertEquals(document, expected, JSONElement.validate(document));
+            assertEquals(document, expected, JSONElement.validate(document.toCharArray(), 0, document.length()));
+            assertEquals(document, expected < 0, JSONElement.isValid(document));
+        }
+    }
+
+    @Test
+    public void testUtf8() {
+        for (String document : DOCUMENTS) {
+            byte[] utf8 = document.getBytes(StandardCharsets.UTF_8);
+            boolean expected = parse(document) < 0;
+            assertEquals(document, expected, JSONElement.isValid(utf8));
+            assertEquals(document, expected, JSONElement.isValid(ByteBuffer.wrap(utf8)));
+
+            byte[] padded = new byte[utf8.length + 4];
+            System.arraycopy(utf8, 0, padded, 2, utf8.length);
+            padded[0] = padded[padded.length - 1] = '}';
+            assertEquals(document, expected, JSONElement.isValid(padded, 2, utf8.length));
+        }
+    }
+
+    @Test
+    public void testErrorPosition() {
+        assertEquals(-1, JSONElement.validate("{\"a\":[1,2]}"));
+        assertEquals(8, JSONElement.validate("{\"a\":[1,}"));
+        assertEquals(5, JSONElement.validate("[1,2 3]"));
+    }
+
+    @Test
+    public void testStrict() {
+        JSONParseOptions strict = new JSONParseOptions().strict(true);
+        assertEquals(-1, JSONElement.validate("{\"a\":[true,null,-1.5e3]} ", strict));
+        assertEquals(1, JSONElement.validate("{a:1}", strict));
+        assertEquals(5, JSONElement.validate("{\"a\":'b'}", strict));
+        assertEquals(4, JSONElement.validate("[1] x", strict));
+        assertTrue(JSONElement.validate("{a:1}") < 0);
+    }
+
+    @Test
+    public void testDeepNesting() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.append(i % 3 == 1 ? "{\"a\":" : "[");
+        }
+        for (int i = 999; i >= 0; i--) {
+            builder.append(i % 3 == 1 ? "}" : "]");
+        }
+        assertTrue(JSONElement.isValid(builder));
+        builder.setCharAt(builder.length() - 2, ']');
+        assertFalse(JSONElement.isValid(builder));
+    }
+
+    private static int parse(String document) {
+        try {
+            JSONElement.parse(document, new JSONParseOptions());
+            return -1;
+        } catch (JSONException e) {
+            return e.getPosition() < 0 ? document.length() : e.getPosition();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package local.tools.json.resources;
 
 import local.tools.json.JSONArray;
+import local.tools.json.JSONElement;
 import local.tools.json.JSONException;
 import local.tools.json.JSONObject;
 import local.tools.json.JSONTestUtils;
@@ -12,12 +13,14 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.fail;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 
@@ -45,6 +48,13 @@ public class NegativeTests {
         }
     }
 
+    @ParameterizedTest
+    @MethodSource({"allArrayNegativeTests", "allObjectNegativeTests"})
+    void testNegativeValidation(String filename, String json) {
+        assertFalse(String.format("Test file '%s' was validated.", filename), JSONElement.isValid(json));
+        assertFalse(String.format("Test file '%s' was validated.", filename), JSONElement.isValid(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
     private static Stream<Arguments> allArrayNegativeTests() throws IOException {
         return browseAllTestFiles("negative/arrays");
     }
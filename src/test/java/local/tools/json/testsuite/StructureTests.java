@@ -24,10 +24,13 @@
 package local.tools.json.testsuite;
 
 import local.tools.json.JSONArray;
+import local.tools.json.JSONElement;
 import local.tools.json.JSONException;
+import local.tools.json.JSONParseOptions;
 import local.tools.json.JSONTestUtils;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 public class StructureTests {
@@ -652,4 +655,40 @@ public class StructureTests {
         } catch (JSONException e) {
         }
     }
+
+    @Test
+    public void i_structure_200000_nested_arrays() throws JSONException {
+        int depth = 200000;
+        StringBuilder str = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            str.append('[');
+        }
+        str.append(7);
+        for (int i = 0; i < depth; i++) {
+            str.append(']');
+        }
+        JSONArray elm = new JSONArray(str.toString());
+        for (int i = 1; i < depth; i++) {
+            elm = elm.getJSONArray(0);
+        }
+        assertEquals(7, elm.getInt(0));
+    }
+
+    @Test
+    public void i_structure_200000_nested_arrays_compact() throws JSONException {
+        int depth = 200000;
+        StringBuilder str = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            str.append('[');
+        }
+        str.append(7);
+        for (int i = 0; i < depth; i++) {
+            str.append(']');
+        }
+        JSONArray elm = (JSONArray) JSONElement.parse(str.toString(), new JSONParseOptions().compact(true));
+        for (int i = 1; i < depth; i++) {
+            elm = elm.getJSONArray(0);
+        }
+        assertEquals(7, elm.getInt(0));
+    }
 }